@@ -0,0 +1,23 @@
+package com.streamify.authentication;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthenticationServiceBenchmark {
+    private AuthenticationService authenticationService;
+
+    @Setup
+    public void setUp() {
+        // generateActivationCode touches none of the collaborators
+        authenticationService = new AuthenticationService(null, null, null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public String generateActivationCode() {
+        return authenticationService.generateActivationCode(6);
+    }
+}
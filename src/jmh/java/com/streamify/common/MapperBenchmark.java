@@ -0,0 +1,68 @@
+package com.streamify.common;
+
+import com.streamify.comment.Comment;
+import com.streamify.comment.CommentResponse;
+import com.streamify.comment.CommentStatus;
+import com.streamify.story.Story;
+import com.streamify.story.StoryReply;
+import com.streamify.story.StoryReplyResponse;
+import com.streamify.user.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+    @Param({"20", "1000"})
+    private int pageSize;
+
+    private final Mapper mapper = new Mapper();
+    private List<Comment> comments;
+    private List<StoryReply> storyReplies;
+
+    @Setup
+    public void setUp() {
+        User user = User.builder().id("user").username("user").build();
+        Story story = Story.builder().id("story").user(user).build();
+        comments = IntStream.range(0, pageSize)
+                .mapToObj(idx -> Comment.builder()
+                        .id("comment-" + idx)
+                        .content("comment " + idx)
+                        .createdAt(LocalDateTime.now().minusMinutes(idx))
+                        .user(user)
+                        .replies(List.of())
+                        .status(CommentStatus.ACTIVE)
+                        .build()
+                )
+                .toList();
+        storyReplies = IntStream.range(0, pageSize)
+                .mapToObj(idx -> StoryReply.builder()
+                        .id("reply-" + idx)
+                        .content("reply " + idx)
+                        .createdAt(LocalDateTime.now().minusMinutes(idx))
+                        .user(user)
+                        .story(story)
+                        .build()
+                )
+                .toList();
+    }
+
+    @Benchmark
+    public List<CommentResponse> mapCommentPage() {
+        return comments.stream()
+                .map(mapper::toCommentResponse)
+                .toList();
+    }
+
+    @Benchmark
+    public List<StoryReplyResponse> mapStoryReplyPage() {
+        return storyReplies.stream()
+                .map(mapper::toStoryReplyResponse)
+                .toList();
+    }
+}
@@ -0,0 +1,54 @@
+package com.streamify.post;
+
+import com.streamify.user.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostMapperBenchmark {
+    @Param({"20", "1000"})
+    private int pageSize;
+
+    private final PostMapper postMapper = new PostMapper();
+    private List<Post> posts;
+
+    @Setup
+    public void setUp() {
+        User author = User.builder().id("author").username("author").build();
+        Set<User> collaborators = new LinkedHashSet<>(List.of(
+                User.builder().id("collaborator-1").username("collaborator_1").build(),
+                User.builder().id("collaborator-2").username("collaborator_2").build()
+        ));
+        posts = IntStream.range(0, pageSize)
+                .mapToObj(idx -> {
+                    Post post = Post.builder()
+                            .id("post-" + idx)
+                            .caption("caption " + idx)
+                            .createdAt(LocalDateTime.now().minusMinutes(idx))
+                            .visibility(PostVisibility.PUBLIC)
+                            .user(author)
+                            .collaborators(collaborators)
+                            .build();
+                    post.setPostMedia(List.of(
+                            PostMedia.builder().id("media-" + idx).post(post).mediaUrl("/post-assets/" + idx + ".jpg").type("image/jpeg").build()
+                    ));
+                    return post;
+                })
+                .toList();
+    }
+
+    @Benchmark
+    public List<PostResponse> mapPage() {
+        return posts.stream()
+                .map(postMapper::toPostResponse)
+                .toList();
+    }
+}
@@ -0,0 +1,64 @@
+package com.streamify.security;
+
+import com.streamify.user.User;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// per request cost of the filter without a database, ttl 0 turns every request into a principal cache miss
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthenticationFilterBenchmark {
+    @Param({"300", "0"})
+    private long principalTtlSeconds;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 259200000L);
+        ReflectionTestUtils.setField(jwtService, "secretKey", Encoders.BASE64URL.encode(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded()));
+        jwtService.init();
+        User user = User.builder()
+                .id("bench-user")
+                .username("bench_user")
+                .build();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        filter = new JwtAuthenticationFilter(
+                jwtService,
+                username -> user,
+                new PrincipalCache(principalTtlSeconds, 10_000, meterRegistry),
+                meterRegistry
+        );
+        authorization = "Bearer " + jwtService.generateJwtToken(Map.of("username", user.getUsername()), user);
+    }
+
+    @Benchmark
+    public MockFilterChain authenticateRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/feed");
+        request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        MockFilterChain filterChain = new MockFilterChain();
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return filterChain;
+    }
+}
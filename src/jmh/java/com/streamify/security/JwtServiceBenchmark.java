@@ -0,0 +1,51 @@
+package com.streamify.security;
+
+import com.streamify.user.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtServiceBenchmark {
+    private JwtService jwtService;
+    private User user;
+    private Map<String, Object> claims;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 259200000L);
+        ReflectionTestUtils.setField(jwtService, "secretKey", Encoders.BASE64URL.encode(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded()));
+        jwtService.init();
+        user = User.builder()
+                .id("bench-user")
+                .username("bench_user")
+                .build();
+        claims = Map.of("username", user.getUsername());
+        token = jwtService.generateJwtToken(claims, user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateJwtToken(claims, user);
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public boolean parseAndValidateToken() {
+        return jwtService.isTokenValid(jwtService.parseToken(token), user);
+    }
+}
@@ -0,0 +1,69 @@
+package com.streamify.story;
+
+import com.streamify.common.Mapper;
+import com.streamify.user.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// viewer list assembly of findStoryById, the repositories are plain fakes so only the mapping is measured
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StoryServiceBenchmark {
+    @Param({"100", "10000"})
+    private int viewerCount;
+
+    private StoryService storyService;
+
+    @Setup
+    public void setUp() {
+        User owner = User.builder().id("owner").username("owner").build();
+        Story story = Story.builder()
+                .id("story")
+                .type(StoryType.IMAGE)
+                .user(owner)
+                .createdAt(LocalDateTime.now())
+                .expiredAt(LocalDateTime.now().plusHours(12))
+                .build();
+        // already newest first, the way findViewersByStoryIdIn returns them
+        List<StoryViewerRow> viewers = IntStream.range(0, viewerCount)
+                .mapToObj(idx -> new StoryViewerRow(
+                        "view-" + idx,
+                        story.getId(),
+                        "viewer-" + idx,
+                        "viewer_" + idx,
+                        LocalDateTime.now().minusSeconds(idx)
+                ))
+                .toList();
+
+        StoryRepository storyRepository = fake(StoryRepository.class, "findById", Optional.of(story));
+        StoryViewRepository storyViewRepository = fake(StoryViewRepository.class, "findViewersByStoryIdIn", viewers);
+        storyService = new StoryService(null, storyRepository, null, storyViewRepository, null, null, new Mapper(), null);
+    }
+
+    @Benchmark
+    public StoryResponse findStoryById() {
+        return storyService.findStoryById("story");
+    }
+
+    // answers the one method findStoryById calls with a fixed result, without the invocation recording
+    // and argument matching of a mock in the measured call
+    private static <T> T fake(Class<T> repositoryType, String methodName, Object result) {
+        return repositoryType.cast(Proxy.newProxyInstance(
+                repositoryType.getClassLoader(),
+                new Class<?>[]{repositoryType},
+                (proxy, method, args) -> {
+                    if (method.getName().equals(methodName)) {
+                        return result;
+                    }
+                    throw new UnsupportedOperationException(method.getName() + " is not faked");
+                }
+        ));
+    }
+}
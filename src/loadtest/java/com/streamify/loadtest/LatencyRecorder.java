@@ -0,0 +1,57 @@
+package com.streamify.loadtest;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LatencyRecorder {
+    private final ConcurrentHashMap<String, EndpointSamples> samples = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long elapsedNanos, boolean isSuccess) {
+        EndpointSamples endpointSamples = samples.computeIfAbsent(endpoint, key -> new EndpointSamples());
+        endpointSamples.latencies.add(elapsedNanos);
+        if (!isSuccess) {
+            endpointSamples.errors.incrementAndGet();
+        }
+    }
+
+    public String report(long wallClockNanos) {
+        double wallClockSeconds = wallClockNanos / 1_000_000_000d;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-22s %8s %7s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "p50 ms", "p99 ms", "max ms", "req/s"));
+        new TreeMap<>(samples).forEach((endpoint, endpointSamples) -> {
+            long[] sorted = endpointSamples.latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            report.append(String.format("%-22s %8d %7d %10.2f %10.2f %10.2f %10.1f%n",
+                    endpoint,
+                    sorted.length,
+                    endpointSamples.errors.get(),
+                    toMillis(percentile(sorted, 0.50)),
+                    toMillis(percentile(sorted, 0.99)),
+                    toMillis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]),
+                    sorted.length / wallClockSeconds
+            ));
+        });
+        return report.toString();
+    }
+
+    // nearest rank, good enough for a few thousand samples per endpoint
+    private long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(rank - 1, 0)];
+    }
+
+    private double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static class EndpointSamples {
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicLong errors = new AtomicLong();
+    }
+}
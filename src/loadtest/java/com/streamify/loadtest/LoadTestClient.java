@@ -0,0 +1,167 @@
+package com.streamify.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// thin http client, every call is timed under a stable endpoint name so path ids do not split the report
+public class LoadTestClient {
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final LatencyRecorder recorder;
+    private final String baseUrl;
+
+    public LoadTestClient(String baseUrl, LatencyRecorder recorder) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.objectMapper = new ObjectMapper();
+        this.recorder = recorder;
+        this.baseUrl = baseUrl;
+    }
+
+    public void register(String username, String email, String password) throws IOException, InterruptedException {
+        send("register", post("/auth/register", null, json(Map.of(
+                "fullName", "Load Test " + username,
+                "email", email,
+                "password", password,
+                "username", username
+        ))));
+    }
+
+    public String login(String identifier, String password) throws IOException, InterruptedException {
+        String body = send("login", post("/auth/authenticate", null, json(Map.of(
+                "identifier", identifier,
+                "password", password
+        ))));
+        return objectMapper.readTree(body).get("token").asText();
+    }
+
+    public String uploadPostContents(String token, List<Part> parts) throws IOException, InterruptedException {
+        String boundary = "streamify-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (Part part : parts) {
+            writeFilePart(body, boundary, "contents", part);
+        }
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return send("upload.post", multipart("/posts/contents", token, boundary, body.toByteArray()));
+    }
+
+    public void savePostMetaData(String token, String postId, String caption) throws IOException, InterruptedException {
+        send("upload.post-meta-data", post("/posts/" + postId + "/meta-data", token, json(Map.of(
+                "caption", caption,
+                "visibility", "PUBLIC",
+                "archived", false,
+                "allowComments", true,
+                "collaborators", List.of()
+        ))));
+    }
+
+    public String addStory(String token, String caption, Part content) throws IOException, InterruptedException {
+        String boundary = "streamify-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeFieldPart(body, boundary, "caption", caption);
+        writeFieldPart(body, boundary, "isArchived", "false");
+        writeFilePart(body, boundary, "content", content);
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return send("story.add", multipart("/stories", token, boundary, body.toByteArray()));
+    }
+
+    public void follow(String token, String followingId) throws IOException, InterruptedException {
+        send("user.follow", patch("/users/follow/" + followingId, token));
+    }
+
+    public void readFeed(String token) throws IOException, InterruptedException {
+        send("feed.read", get("/feed?size=10", token));
+    }
+
+    public void comment(String token, String postId, String content) throws IOException, InterruptedException {
+        send("post.comment", post("/posts/" + postId + "/comment?content=" + URLEncoder.encode(content, StandardCharsets.UTF_8), token, ""));
+    }
+
+    public void viewStory(String token, String storyId, String viewerId) throws IOException, InterruptedException {
+        send("story.view", patch("/stories/" + storyId + "/viewers/" + viewerId, token));
+    }
+
+    private String send(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        long startedAt = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException exception) {
+            recorder.record(endpoint, System.nanoTime() - startedAt, false);
+            throw exception;
+        }
+        boolean isSuccess = response.statusCode() / 100 == 2;
+        recorder.record(endpoint, System.nanoTime() - startedAt, isSuccess);
+        if (!isSuccess) {
+            throw new IllegalStateException(endpoint + " failed with status " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private HttpRequest post(String path, String token, String json) {
+        return request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest patch(String path, String token) {
+        return request(path, token)
+                .method("PATCH", HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private HttpRequest multipart(String path, String token, String boundary, byte[] body) {
+        return request(path, token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private String json(Map<String, Object> body) throws IOException {
+        return objectMapper.writeValueAsString(body);
+    }
+
+    private void writeFieldPart(ByteArrayOutputStream body, String boundary, String name, String value) throws IOException {
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeFilePart(ByteArrayOutputStream body, String boundary, String name, Part part) throws IOException {
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + part.filename() + "\"\r\n"
+                + "Content-Type: " + part.contentType() + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(part.content());
+        body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    public record Part(String filename, String contentType, byte[] content) {
+    }
+}
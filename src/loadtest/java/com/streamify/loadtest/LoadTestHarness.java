@@ -0,0 +1,242 @@
+package com.streamify.loadtest;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.streamify.Streamify;
+import com.streamify.user.UserRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// boots the whole service against an embedded postgres, a stub ffmpeg and an in-process smtp sink,
+// then drives every virtual user through register, login, upload, feed, comment and story views
+public class LoadTestHarness {
+    private static final String PASSWORD = "load-test-password";
+
+    // every probed file is a 10 second 720p clip with an audio track
+    private static final String FFPROBE_STUB = """
+            #!/bin/sh
+            cat <<'JSON'
+            {
+              "streams": [
+                {"codec_type": "video", "codec_name": "h264", "width": 1280, "height": 720, "avg_frame_rate": "30/1"},
+                {"codec_type": "audio", "codec_name": "aac"}
+              ],
+              "format": {"duration": "10.000000", "bit_rate": "2500000"}
+            }
+            JSON
+            """;
+
+    private final int users = Integer.getInteger("loadtest.users", 50);
+    private final int iterations = Integer.getInteger("loadtest.iterations", 20);
+    private final long thinkTimeMs = Long.getLong("loadtest.think-time-ms", 0);
+    private final int ffmpegDelaySeconds = Integer.getInteger("loadtest.ffmpeg-delay-seconds", 0);
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+    private final List<String> userIds = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> postIds = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> storyIds = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failedSteps = new AtomicInteger();
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestHarness().run();
+    }
+
+    private void run() throws Exception {
+        Path workDir = Files.createTempDirectory("streamify-loadtest");
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            GreenMail greenMail = new GreenMail(ServerSetupTest.SMTP.dynamicPort())
+                    .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+            greenMail.start();
+            try (ConfigurableApplicationContext context = startApplication(workDir, postgres, greenMail.getSmtp().getPort())) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                LoadTestClient client = new LoadTestClient("http://localhost:" + port + "/api/v1", recorder);
+                UserRepository userRepository = context.getBean(UserRepository.class);
+
+                long startedAt = System.nanoTime();
+                runVirtualUsers(client, userRepository);
+                long elapsed = System.nanoTime() - startedAt;
+
+                String report = recorder.report(elapsed);
+                System.out.println();
+                System.out.printf("%d users x %d iterations in %.1f s, %d failed steps, %d mails sunk%n",
+                        users, iterations, elapsed / 1_000_000_000d, failedSteps.get(), greenMail.getReceivedMessages().length);
+                System.out.println(report);
+                Path resultFile = Paths.get("target", "loadtest-result.txt");
+                Files.createDirectories(resultFile.getParent());
+                Files.writeString(resultFile, report);
+            } finally {
+                greenMail.stop();
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(Path workDir, EmbeddedPostgres postgres, int smtpPort) throws IOException {
+        Path ffmpeg = writeStub(workDir.resolve("ffmpeg"), ffmpegStub());
+        Path ffprobe = writeStub(workDir.resolve("ffprobe"), FFPROBE_STUB);
+        // command line arguments, so they win over application-dev.yml
+        return new SpringApplicationBuilder(Streamify.class).run(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.jpa.show-sql=false",
+                "--spring.mail.host=localhost",
+                "--spring.mail.port=" + smtpPort,
+                "--twilio.account_sid=AC00000000000000000000000000000000",
+                "--twilio.auth_token=load-test",
+                "--twilio.phone_number=+10000000000",
+                "--server.port=0",
+                "--management.server.port=0",
+                "--logging.level.root=WARN",
+                "--application.ffmpeg.ffmpeg-path=" + ffmpeg,
+                "--application.ffmpeg.ffprobe-path=" + ffprobe,
+                "--application.file.upload.content-base-url.post=" + workDir.resolve("post-assets"),
+                "--application.file.upload.content-base-url.story=" + workDir.resolve("story-assets"),
+                "--application.file.upload.content-base-url.blobs=" + workDir.resolve("media-blobs"),
+                "--application.preview.cache-dir=" + workDir.resolve("preview-cache")
+        );
+    }
+
+    private void runVirtualUsers(LoadTestClient client, UserRepository userRepository) throws Exception {
+        // every user shares the same image, so image uploads exercise the dedupe path
+        byte[] image = generateImage();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                int userNumber = i;
+                futures.add(executor.submit(() -> {
+                    runVirtualUser(client, userRepository, userNumber, image);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    private void runVirtualUser(LoadTestClient client, UserRepository userRepository, int userNumber, byte[] image) throws Exception {
+        String username = "load_user_" + userNumber;
+        String token;
+        String userId;
+        try {
+            client.register(username, username + "@streamify.test", PASSWORD);
+            token = client.login(username, PASSWORD);
+            userId = userRepository.findByUsername(username).orElseThrow().getId();
+        } catch (Exception exception) {
+            // without a session the rest of the scenario is meaningless
+            failedSteps.incrementAndGet();
+            return;
+        }
+        userIds.add(userId);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            step(() -> {
+                // fresh video bytes every time, a duplicate would reuse the stored blob and skip the transcode
+                byte[] video = new byte[256 * 1024];
+                random.nextBytes(video);
+                // image plus video, so the upload also queues a transcode without taking the single reel path
+                String postId = client.uploadPostContents(token, List.of(
+                        new LoadTestClient.Part("image.png", "image/png", image),
+                        new LoadTestClient.Part("clip.mp4", "video/mp4", video)
+                ));
+                client.savePostMetaData(token, postId, "load test post " + userNumber);
+                postIds.add(postId);
+            });
+            step(() -> storyIds.add(client.addStory(token, "load test story " + userNumber,
+                    new LoadTestClient.Part("story.png", "image/png", image))));
+            String followingId = pick(userIds, random);
+            if (followingId != null && !followingId.equals(userId)) {
+                step(() -> client.follow(token, followingId));
+            }
+            step(() -> client.readFeed(token));
+            String postId = pick(postIds, random);
+            if (postId != null) {
+                step(() -> client.comment(token, postId, "load test comment " + userNumber));
+            }
+            String storyId = pick(storyIds, random);
+            if (storyId != null) {
+                step(() -> client.viewStory(token, storyId, userId));
+            }
+            if (thinkTimeMs > 0) {
+                Thread.sleep(thinkTimeMs);
+            }
+        }
+    }
+
+    // a failed request is already in the report, the user keeps going with the next step
+    private void step(Step step) {
+        try {
+            step.run();
+        } catch (Exception exception) {
+            failedSteps.incrementAndGet();
+        }
+    }
+
+    private String pick(List<String> ids, ThreadLocalRandom random) {
+        synchronized (ids) {
+            return ids.isEmpty() ? null : ids.get(random.nextInt(ids.size()));
+        }
+    }
+
+    private byte[] generateImage() throws IOException {
+        BufferedImage image = new BufferedImage(1080, 1080, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, 1080, 1080, Color.MAGENTA));
+            graphics.fillRect(0, 0, 1080, 1080);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+
+    private Path writeStub(Path path, String script) throws IOException {
+        Files.writeString(path, script, StandardCharsets.UTF_8);
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return path;
+    }
+
+    // writes the file the caller waits for, a master playlist and a final progress block for hls output, an empty file otherwise
+    private String ffmpegStub() {
+        return """
+                #!/bin/sh
+                sleep %d
+                for last; do :; done
+                case "$last" in
+                  *%%v.m3u8)
+                    printf '#EXTM3U\\n' > "$(dirname "$last")/master.m3u8"
+                    printf 'out_time_us=10000000\\nprogress=end\\n' ;;
+                  *) : > "$last" ;;
+                esac
+                """.formatted(ffmpegDelaySeconds);
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void run() throws Exception;
+    }
+}
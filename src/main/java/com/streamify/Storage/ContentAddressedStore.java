@@ -0,0 +1,274 @@
+package com.streamify.Storage;
+
+import com.streamify.ffmpeg.MediaMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// uploads are stored once per distinct content under {ab}/{cd}/{sha-256} in the storage backend, posts and stories only hold references
+@Service
+public class ContentAddressedStore {
+    private final Logger LOGGER = LoggerFactory.getLogger(ContentAddressedStore.class);
+    // media urls of blobs are this prefix plus the storage key, e.g. media-blobs/ab/cd/{hash}-hls/master.m3u8
+    private static final String MEDIA_URL_PREFIX = "media-blobs/";
+    // the original, its HLS folder and files, or a preview, nothing else is ever handed to the backend from a url
+    private static final Pattern BLOB_KEY = Pattern.compile(
+            "[0-9a-f]{2}/[0-9a-f]{2}/([0-9a-f]{64})(\\.[a-z0-9]{1,10}|-hls(/\\w+\\.(m3u8|ts))?|-previews/[a-z]+\\.jpg)"
+    );
+
+    // the row starts pending with no references, acquire only matches stored blobs so nobody is handed the url
+    // before the file exists, returns 0 when a concurrent upload of the same content inserted the row first
+    private static final String INSERT_BLOB = """
+            INSERT INTO media_blobs (
+                hash, storage_key, content_type, size, reference_count, created_at,
+                duration_seconds, width, height, rotation, video_codec, audio_codec, bit_rate, frame_rate
+            )
+            VALUES (?, ?, ?, ?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (hash) DO NOTHING
+            """;
+    private static final String MARK_STORED = """
+            UPDATE media_blobs
+            SET reference_count = 1
+            WHERE hash = ?
+            AND reference_count = 0
+            """;
+    // a pending row whose upload died with its node is taken over, otherwise the content could never be stored again
+    private static final String CLAIM_STALE_PENDING = """
+            UPDATE media_blobs
+            SET storage_key = ?, created_at = ?
+            WHERE hash = ?
+            AND reference_count = 0
+            AND created_at < ?
+            """;
+    private static final Duration PENDING_TIMEOUT = Duration.ofMinutes(10);
+    private static final long PENDING_POLL_INTERVAL_MS = 100;
+
+    private final MediaBlobRepository mediaBlobRepository;
+    private final StorageBackend storageBackend;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private Path stagingRoot;
+
+    @Value("${application.file.upload.content-base-url.blobs}")
+    private String blobBaseUrl;
+
+    public ContentAddressedStore(MediaBlobRepository mediaBlobRepository, StorageBackend storageBackend, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.mediaBlobRepository = mediaBlobRepository;
+        this.storageBackend = storageBackend;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        // staging is always on local disk, under the blobs folder a local backend commits a blob with a rename
+        stagingRoot = Paths.get(blobBaseUrl.replace("/", File.separator)).normalize().resolve("staging");
+        Files.createDirectories(stagingRoot);
+        try (Stream<Path> leftovers = Files.list(stagingRoot)) {
+            for (Path leftover : leftovers.toList()) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    // hashed while it streams to disk, so the upload is read exactly once
+    public StagedBlob stage(MultipartFile sourceFile, String extension) throws IOException {
+        Path stagingPath = stagingRoot.resolve(UUID.randomUUID() + ".part");
+        MessageDigest digest = sha256();
+        try (InputStream input = new DigestInputStream(sourceFile.getInputStream(), digest)) {
+            long size = Files.copy(input, stagingPath);
+            return new StagedBlob(stagingPath, HexFormat.of().formatHex(digest.digest()), size, extension);
+        } catch (IOException exception) {
+            Files.deleteIfExists(stagingPath);
+            throw exception;
+        }
+    }
+
+    // the metadata reader only runs for content that is new, duplicates reuse what the first upload probed
+    public StoredBlob store(StagedBlob staged, String contentType, MetadataReader metadataReader) throws IOException, InterruptedException {
+        try {
+            MediaMetadata metadata = null;
+            while (true) {
+                if (mediaBlobRepository.acquire(staged.hash()) == 1) {
+                    return new StoredBlob(findBlob(staged.hash()), false);
+                }
+                if (metadata == null) {
+                    metadata = metadataReader.read(staged.path());
+                }
+                String storageKey = shardOf(staged.hash()) + "/" + staged.hash() + "." + staged.extension();
+                MediaBlob blob = MediaBlob.builder()
+                        .hash(staged.hash())
+                        .storageKey(storageKey)
+                        .contentType(contentType)
+                        .size(staged.size())
+                        .referenceCount(0)
+                        .metadata(metadata)
+                        .createdAt(LocalDateTime.now())
+                        .build();
+                // the row goes in before the file, a release of the same content holds the row lock
+                // while it deletes files, so it can never remove the file stored below
+                if (insertBlob(blob) == 1 || claimStalePending(staged.hash(), storageKey)) {
+                    putIntoBackend(staged, storageKey, contentType);
+                    markStored(staged.hash());
+                    blob.setReferenceCount(1);
+                    return new StoredBlob(blob, true);
+                }
+                // lost the race against an upload or a release of the same content, wait until it is stored or gone
+                Thread.sleep(PENDING_POLL_INTERVAL_MS);
+            }
+        } finally {
+            Files.deleteIfExists(staged.path());
+        }
+    }
+
+    public void release(String hash) {
+        Boolean isDeleted = transactionTemplate.execute(status -> {
+            MediaBlob blob = mediaBlobRepository.findByHashForUpdate(hash).orElse(null);
+            if (blob == null) {
+                return false;
+            }
+            if (blob.getReferenceCount() > 1) {
+                blob.setReferenceCount(blob.getReferenceCount() - 1);
+                return false;
+            }
+            mediaBlobRepository.delete(blob);
+            mediaBlobRepository.flush();
+            try {
+                storageBackend.delete(blob.getStorageKey());
+                if (blob.getHlsKey() != null) {
+                    storageBackend.deleteAll(blob.getHlsKey());
+                }
+                storageBackend.deleteAll(previewsKeyOf(hash));
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            return true;
+        });
+        if (Boolean.TRUE.equals(isDeleted)) {
+            LOGGER.info("Media blob {} has no references left and was deleted", hash);
+        }
+    }
+
+    public String hlsKeyOf(String hash) {
+        return shardOf(hash) + "/" + hash + "-hls";
+    }
+
+    public String previewKeyOf(String hash, String sizeName) {
+        return previewsKeyOf(hash) + "/" + sizeName + ".jpg";
+    }
+
+    public String mediaUrlOf(String key) {
+        return MEDIA_URL_PREFIX + key;
+    }
+
+    // null for urls that are not blobs, e.g. media stored before the content addressed store
+    public String keyOf(String mediaUrl) {
+        if (mediaUrl == null || !mediaUrl.startsWith(MEDIA_URL_PREFIX)) {
+            return null;
+        }
+        String key = mediaUrl.substring(MEDIA_URL_PREFIX.length());
+        return BLOB_KEY.matcher(key).matches() ? key : null;
+    }
+
+    public String hashOf(String key) {
+        Matcher matcher = BLOB_KEY.matcher(key);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a media blob key: " + key);
+        }
+        return matcher.group(1);
+    }
+
+    private String previewsKeyOf(String hash) {
+        return shardOf(hash) + "/" + hash + "-previews";
+    }
+
+    // two levels of 256 prefixes keep every directory small, even with millions of blobs
+    private String shardOf(String hash) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4);
+    }
+
+    private MediaBlob findBlob(String hash) {
+        return mediaBlobRepository.findById(hash)
+                .orElseThrow(() ->
+                        new EntityNotFoundException("Media blob is not found with hash: " + hash)
+                );
+    }
+
+    private int insertBlob(MediaBlob blob) {
+        MediaMetadata metadata = blob.getMetadata() == null ? new MediaMetadata() : blob.getMetadata();
+        return jdbcTemplate.update(INSERT_BLOB, statement -> {
+            statement.setString(1, blob.getHash());
+            statement.setString(2, blob.getStorageKey());
+            statement.setString(3, blob.getContentType());
+            statement.setLong(4, blob.getSize());
+            statement.setTimestamp(5, Timestamp.valueOf(blob.getCreatedAt()));
+            statement.setObject(6, metadata.getDurationSeconds(), Types.DOUBLE);
+            statement.setObject(7, metadata.getWidth(), Types.INTEGER);
+            statement.setObject(8, metadata.getHeight(), Types.INTEGER);
+            statement.setObject(9, metadata.getRotation(), Types.INTEGER);
+            statement.setString(10, metadata.getVideoCodec());
+            statement.setString(11, metadata.getAudioCodec());
+            statement.setObject(12, metadata.getBitRate(), Types.BIGINT);
+            statement.setObject(13, metadata.getFrameRate(), Types.DOUBLE);
+        });
+    }
+
+    private boolean claimStalePending(String hash, String storageKey) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update(
+                CLAIM_STALE_PENDING,
+                storageKey,
+                Timestamp.valueOf(now),
+                hash,
+                Timestamp.valueOf(now.minus(PENDING_TIMEOUT))
+        ) == 1;
+    }
+
+    private void markStored(String hash) {
+        if (jdbcTemplate.update(MARK_STORED, hash) != 1) {
+            throw new IllegalStateException("Media blob " + hash + " is no longer pending");
+        }
+    }
+
+    private void putIntoBackend(StagedBlob staged, String storageKey, String contentType) throws IOException {
+        try {
+            storageBackend.put(storageKey, staged.path(), contentType);
+        } catch (IOException exception) {
+            // the pending row goes, so the next upload of the same content stores it again
+            release(staged.hash());
+            throw exception;
+        }
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+}
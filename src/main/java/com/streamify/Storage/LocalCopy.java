@@ -0,0 +1,15 @@
+package com.streamify.Storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// a temporary copy is deleted on close, the file of a local backend is left alone
+public record LocalCopy(Path path, boolean isTemporary) implements AutoCloseable {
+    @Override
+    public void close() throws IOException {
+        if (isTemporary) {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.streamify.Storage;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.*;
+
+// single node setups, every key is a file under the blobs folder
+@Service
+@ConditionalOnProperty(name = "application.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalStorageBackend implements StorageBackend {
+    private Path root;
+
+    @Value("${application.file.upload.content-base-url.blobs}")
+    private String blobBaseUrl;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(blobBaseUrl.replace("/", File.separator)).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public LocalCopy localCopy(String key) {
+        return new LocalCopy(resolve(key), false);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public void deleteAll(String prefix) throws IOException {
+        FileSystemUtils.deleteRecursively(resolve(prefix));
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return resolve(key);
+    }
+
+    @Override
+    public URI presignedGetUrl(String key) {
+        return null;
+    }
+
+    private Path resolve(String key) {
+        Path file = root.resolve(key.replace("/", File.separator)).normalize();
+        if (!file.startsWith(root)) {
+            throw new IllegalArgumentException("Storage key is outside of the store: " + key);
+        }
+        return file;
+    }
+}
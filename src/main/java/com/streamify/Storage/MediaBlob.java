@@ -0,0 +1,43 @@
+package com.streamify.Storage;
+
+import com.streamify.ffmpeg.MediaMetadata;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+// one row per distinct file content, posts and stories point at it through the content hash
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "media_blobs")
+@EntityListeners(AuditingEntityListener.class)
+public class MediaBlob {
+    // hex sha-256 of the uploaded bytes
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    // key of the original in the storage backend
+    @Column(nullable = false)
+    private String storageKey;
+
+    // set once the transcode of a video finished, every later upload of the same video reuses it
+    private String hlsKey;
+
+    private String contentType;
+    private long size;
+    private int referenceCount;
+
+    @Embedded
+    private MediaMetadata metadata;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
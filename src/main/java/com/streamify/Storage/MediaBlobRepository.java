@@ -0,0 +1,43 @@
+package com.streamify.Storage;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, String> {
+    // returns 0 when the blob is unknown or is being released, the caller stores the content itself
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE MediaBlob blob
+            SET blob.referenceCount = blob.referenceCount + 1
+            WHERE blob.hash = :hash
+            AND blob.referenceCount > 0
+            """)
+    int acquire(@Param("hash") String hash);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT blob
+            FROM MediaBlob blob
+            WHERE blob.hash = :hash
+            """)
+    Optional<MediaBlob> findByHashForUpdate(@Param("hash") String hash);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE MediaBlob blob
+            SET blob.hlsKey = :hlsKey
+            WHERE blob.hash = :hash
+            """)
+    int updateHlsKey(@Param("hash") String hash, @Param("hlsKey") String hlsKey);
+}
@@ -5,15 +5,20 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public interface MediaService {
-    String uploadPostContent(MultipartFile sourceFile, String userId, String postId) throws IOException;
+    StoredMedia uploadPostContent(MultipartFile sourceFile, String userId, String postId) throws IOException;
 
     boolean deletePostContent(List<PostMedia> sourceFiles) throws IOException;
 
-    String uploadStoryContent(MultipartFile sourceFile, String storyId, String userId) throws IOException, InterruptedException;
+    StoredMedia uploadStoryContent(MultipartFile sourceFile, String storyId, String userId) throws IOException, InterruptedException;
 
-    boolean deleteStoryContent(String mediaUrl) throws IOException;
+    boolean deleteStoryContent(String contentHash, String mediaUrl) throws IOException;
+
+    // the HLS url of every blob among the hashes that has finished transcoding
+    Map<String, String> findTranscodedMediaUrls(Collection<String> contentHashes);
 }
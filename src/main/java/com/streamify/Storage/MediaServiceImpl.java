@@ -1,12 +1,17 @@
 package com.streamify.Storage;
 
 import com.streamify.ffmpeg.FfmpegService;
+import com.streamify.ffmpeg.ImagePreviewService;
+import com.streamify.ffmpeg.MediaMetadata;
+import com.streamify.ffmpeg.TranscodeService;
 import com.streamify.post.PostMedia;
-import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
@@ -14,58 +19,69 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class MediaServiceImpl implements MediaService {
     private final Logger LOGGER = LoggerFactory.getLogger(MediaServiceImpl.class);
 
     private final FfmpegService ffmpegService;
+    private final TranscodeService transcodeService;
+    private final ImagePreviewService imagePreviewService;
+    private final ContentAddressedStore contentAddressedStore;
+    private final MediaBlobRepository mediaBlobRepository;
+    private final MeterRegistry meterRegistry;
 
-    @Value("${application.file.upload.content-base-url.post}")
-    private String postBaseUrl;
-
-    @Value("${application.file.upload.content-base-url.story}")
-    private String storyBaseUrl;
-
-    public MediaServiceImpl(FfmpegService ffmpegService) {
+    public MediaServiceImpl(FfmpegService ffmpegService, TranscodeService transcodeService, ImagePreviewService imagePreviewService, ContentAddressedStore contentAddressedStore, MediaBlobRepository mediaBlobRepository, MeterRegistry meterRegistry) {
         this.ffmpegService = ffmpegService;
+        this.transcodeService = transcodeService;
+        this.imagePreviewService = imagePreviewService;
+        this.contentAddressedStore = contentAddressedStore;
+        this.mediaBlobRepository = mediaBlobRepository;
+        this.meterRegistry = meterRegistry;
     }
 
-    @PostConstruct
-    public void init() {
-        postBaseUrl = postBaseUrl.replace("/", File.separator);
-        storyBaseUrl = storyBaseUrl.replace("/", File.separator);
+    @Override
+    public StoredMedia uploadPostContent(MultipartFile sourceFile, String userId, String postId) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            StoredMedia storedMedia = storePostContent(sourceFile, userId, postId);
+            outcome = "success";
+            return storedMedia;
+        } finally {
+            recordUpload("post", sourceFile, sample, outcome);
+        }
     }
 
-    @Override
-    public String uploadPostContent(MultipartFile sourceFile, String userId, String postId) throws IOException {
+    private StoredMedia storePostContent(MultipartFile sourceFile, String userId, String postId) throws IOException {
         final String fileExtension = getFileExtension(sourceFile.getOriginalFilename());
-        final String finalFileUploadPath = postBaseUrl + File.separator + userId + File.separator + postId;
-        File targetFolder = new File(finalFileUploadPath);
-        if (!targetFolder.exists()) {
-            boolean isFolderCreated = targetFolder.mkdirs();
-            if (!isFolderCreated) {
-                LOGGER.error("Failed to create the target folder");
-                throw new IllegalStateException("Failed to create the target folder");
-            }
-            LOGGER.info("Successfully create the target folder");
-        }
         if (fileExtension == null) {
             throw new IllegalStateException("File extension is not supported");
         }
-        String targetFilePath = finalFileUploadPath + File.separator + UUID.randomUUID() + "." + fileExtension;
-        Path targetPath = Paths.get(targetFilePath);
+        boolean isVideo = Objects.requireNonNull(sourceFile.getContentType()).startsWith("video/");
         try {
-            Files.write(targetPath, sourceFile.getBytes());
-            LOGGER.info("Post Content saved to {}", targetFilePath);
-            if (Objects.requireNonNull(sourceFile.getContentType()).startsWith("video/")) {
-                // process the video
-                ffmpegService.processPostVideoWithFfmpeg(targetPath, postId, userId);
+            StoredBlob storedBlob = contentAddressedStore.store(
+                    contentAddressedStore.stage(sourceFile, fileExtension),
+                    sourceFile.getContentType(),
+                    isVideo ? this::probeVideo : imagePreviewService::readImageMetadata
+            );
+            MediaBlob blob = storedBlob.blob();
+            if (!storedBlob.isNew()) {
+                LOGGER.info("Post Content matches the stored blob {}", blob.getHash());
+            } else if (isVideo) {
+                LOGGER.info("Post Content saved to {}", blob.getStorageKey());
+                // queue the video for the transcode workers
+                transcodeService.enqueuePostVideo(blob.getStorageKey(), postId, userId, blob.getHash());
+            } else {
+                LOGGER.info("Post Content saved to {}", blob.getStorageKey());
+                imagePreviewService.generateBlobPreviews(blob.getHash(), blob.getStorageKey());
             }
-            return targetFilePath;
+            return toStoredMedia(blob);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Post Content was not saved, the upload was interrupted");
         } catch (IOException exception) {
             LOGGER.error("Post Content was not saved @error: {}", exception.getMessage());
             throw exception;
@@ -74,71 +90,146 @@ public class MediaServiceImpl implements MediaService {
 
     @Override
     public boolean deletePostContent(List<PostMedia> sourceFiles) throws IOException {
-       for (PostMedia postMedia : sourceFiles) {
-           Files.delete(Paths.get(postMedia.getMediaUrl()));
-       }
-       // delete the parent folder
-       Files.delete(
-               Paths.get(
-                       sourceFiles.getFirst().getMediaUrl()
-                               .substring(
-                                       0,
-                                       sourceFiles.getFirst().getMediaUrl().lastIndexOf(File.separator)
-                               )
-               )
-       );
-       return true;
+        List<PostMedia> legacyFiles = new ArrayList<>();
+        for (PostMedia postMedia : sourceFiles) {
+            if (postMedia.getContentHash() != null) {
+                // the blob only goes away with its last reference
+                contentAddressedStore.release(postMedia.getContentHash());
+            } else {
+                legacyFiles.add(postMedia);
+            }
+        }
+        if (legacyFiles.isEmpty()) {
+            return true;
+        }
+        // uploads from before the content addressed store live in a folder per post
+        for (PostMedia postMedia : legacyFiles) {
+            Files.delete(Paths.get(postMedia.getMediaUrl()));
+        }
+        // delete the parent folder
+        Files.delete(
+                Paths.get(
+                        legacyFiles.getFirst().getMediaUrl()
+                                .substring(
+                                        0,
+                                        legacyFiles.getFirst().getMediaUrl().lastIndexOf(File.separator)
+                                )
+                )
+        );
+        return true;
     }
 
     @Override
-    public String uploadStoryContent(MultipartFile sourceFile, String storyId, String userId) throws IOException, InterruptedException {
-        final String fileExtension = getFileExtension(sourceFile.getOriginalFilename());
-        final String finalFileUploadPath = storyBaseUrl + File.separator + userId;
-        File targetFolder = new File(finalFileUploadPath);
-        if (!targetFolder.exists()) {
-            boolean isFolderCreated = targetFolder.mkdirs();
-            if (!isFolderCreated) {
-                LOGGER.error("Failed to create the target folder for story");
-                throw new IllegalStateException("Failed to create the target folder");
-            }
-            LOGGER.info("Successfully create the target folder for story");
+    public StoredMedia uploadStoryContent(MultipartFile sourceFile, String storyId, String userId) throws IOException, InterruptedException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            StoredMedia storedMedia = storeStoryContent(sourceFile, storyId, userId);
+            outcome = "success";
+            return storedMedia;
+        } finally {
+            recordUpload("story", sourceFile, sample, outcome);
         }
+    }
+
+    private StoredMedia storeStoryContent(MultipartFile sourceFile, String storyId, String userId) throws IOException, InterruptedException {
+        final String fileExtension = getFileExtension(sourceFile.getOriginalFilename());
         if (fileExtension == null) {
             throw new IllegalStateException("File extension is not supported");
         }
-        String targetFilePath = finalFileUploadPath + File.separator + UUID.randomUUID() + "." + fileExtension;
-        Path targetPath = Paths.get(targetFilePath);
         if (sourceFile.getContentType().startsWith("image/")) {
-            Files.write(targetPath, sourceFile.getBytes());
-            LOGGER.info("Story image saved to {}", targetFilePath);
-            return targetFilePath;
+            StoredBlob storedBlob = contentAddressedStore.store(
+                    contentAddressedStore.stage(sourceFile, fileExtension),
+                    sourceFile.getContentType(),
+                    imagePreviewService::readImageMetadata
+            );
+            MediaBlob blob = storedBlob.blob();
+            if (storedBlob.isNew()) {
+                LOGGER.info("Story image saved to {}", blob.getStorageKey());
+                imagePreviewService.generateBlobPreviews(blob.getHash(), blob.getStorageKey());
+            }
+            return toStoredMedia(blob);
         } else if (sourceFile.getContentType().startsWith("video/")) {
-            if (!isValidStoryVideo(sourceFile)) {
+            // probe the staged file in place instead of writing a second temp copy
+            StoredBlob storedBlob = contentAddressedStore.store(
+                    contentAddressedStore.stage(sourceFile, fileExtension),
+                    sourceFile.getContentType(),
+                    this::probeVideo
+            );
+            MediaBlob blob = storedBlob.blob();
+            // a duplicate is checked against the duration the first upload probed
+            Double duration = blob.getMetadata() == null ? null : blob.getMetadata().getDurationSeconds();
+            if (duration == null || duration > 15) {
+                contentAddressedStore.release(blob.getHash());
                 throw new IllegalStateException("You can only upload 15s story video!");
             }
-            Files.write(targetPath, sourceFile.getBytes());
-            LOGGER.info("Story video saved to {}", targetFilePath);
-
-            // process the video using the ffmpeg
-            ffmpegService.processStoryVideoWithFfmpeg(targetPath, storyId, userId);
-            return targetFilePath;
+            if (storedBlob.isNew()) {
+                LOGGER.info("Story video saved to {}", blob.getStorageKey());
+                // queue the video for the transcode workers
+                transcodeService.enqueueStoryVideo(blob.getStorageKey(), storyId, userId, blob.getHash());
+            }
+            return toStoredMedia(blob);
         } else {
             throw new IllegalStateException("Only image and videos are allowed for story!");
         }
     }
 
     @Override
-    public boolean deleteStoryContent(String mediaUrl) throws IOException {
-        // delete the file content
-        Files.delete(Paths.get(mediaUrl));
+    public boolean deleteStoryContent(String contentHash, String mediaUrl) throws IOException {
+        if (contentHash != null) {
+            contentAddressedStore.release(contentHash);
+            return true;
+        }
+        // the upload never finished, there is nothing on disk
+        if (mediaUrl == null || mediaUrl.isBlank()) {
+            return true;
+        }
+        // an image story is a single file, a transcoded video story is a folder of HLS renditions
+        FileSystemUtils.deleteRecursively(Paths.get(mediaUrl));
         return true;
     }
 
-    private boolean isValidStoryVideo(MultipartFile sourceFile) throws IOException, InterruptedException {
-        // todo -> here we check the video duration is 15s
-        return ffmpegService.isValidStoryVideo(sourceFile);
+    @Override
+    public Map<String, String> findTranscodedMediaUrls(Collection<String> contentHashes) {
+        if (contentHashes.isEmpty()) {
+            return Map.of();
+        }
+        return mediaBlobRepository.findAllById(contentHashes)
+                .stream()
+                .filter(blob -> blob.getHlsKey() != null)
+                .collect(Collectors.toMap(MediaBlob::getHash, blob -> contentAddressedStore.mediaUrlOf(blob.getHlsKey())));
+    }
+
+    // a transcoded blob is served as HLS right away, otherwise the original plays until its transcode finishes
+    private StoredMedia toStoredMedia(MediaBlob blob) {
+        String storageKey = blob.getHlsKey() != null ? blob.getHlsKey() : blob.getStorageKey();
+        return new StoredMedia(contentAddressedStore.mediaUrlOf(storageKey), blob.getHash(), blob.getMetadata());
     }
 
+    private MediaMetadata probeVideo(Path stagingPath) throws IOException, InterruptedException {
+        MediaMetadata metadata = ffmpegService.probeMetadata(stagingPath);
+        if (metadata.getVideoCodec() == null) {
+            throw new IllegalStateException("The uploaded video has no video stream!");
+        }
+        return metadata;
+    }
+
+    private void recordUpload(String target, MultipartFile sourceFile, Timer.Sample sample, String outcome) {
+        String contentType = sourceFile.getContentType() == null ? "" : sourceFile.getContentType();
+        String media = contentType.startsWith("video/") ? "video" : contentType.startsWith("image/") ? "image" : "other";
+        sample.stop(Timer.builder("streamify.upload.duration")
+                .description("Time to stream, validate and store an uploaded file")
+                .tags("target", target, "media", media, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        DistributionSummary.builder("streamify.upload.size")
+                .description("Size of uploaded files")
+                .baseUnit("bytes")
+                .tags("target", target, "media", media)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(sourceFile.getSize());
+    }
 
     private String getFileExtension(String filename) {
         if (filename == null || filename.isEmpty()) {
@@ -148,6 +239,8 @@ public class MediaServiceImpl implements MediaService {
         if (lastDotIdx == -1) {
             return null;
         }
-        return filename.substring(lastDotIdx + 1).toLowerCase();
+        String extension = filename.substring(lastDotIdx + 1).toLowerCase();
+        // the extension ends up in the storage key, so anything but a plain token is rejected
+        return extension.matches("[a-z0-9]{1,10}") ? extension : null;
     }
 }
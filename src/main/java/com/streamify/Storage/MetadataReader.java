@@ -0,0 +1,11 @@
+package com.streamify.Storage;
+
+import com.streamify.ffmpeg.MediaMetadata;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@FunctionalInterface
+public interface MetadataReader {
+    MediaMetadata read(Path stagingPath) throws IOException, InterruptedException;
+}
@@ -0,0 +1,281 @@
+package com.streamify.Storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// AWS S3 or any S3 compatible store (MinIO, Ceph, R2), every app node sees the same objects
+@Service
+@ConditionalOnProperty(name = "application.storage.type", havingValue = "s3")
+public class S3StorageBackend implements StorageBackend {
+    private final Logger LOGGER = LoggerFactory.getLogger(S3StorageBackend.class);
+    // S3 rejects parts below 5 MB except for the last one
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+
+    private S3Client s3Client;
+    private S3Presigner s3Presigner;
+
+    @Value("${application.storage.s3.endpoint:}")
+    private String endpoint;
+
+    @Value("${application.storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${application.storage.s3.bucket}")
+    private String bucket;
+
+    @Value("${application.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${application.storage.s3.secret-key:}")
+    private String secretKey;
+
+    // MinIO and most self hosted stores only understand http://host/bucket/key
+    @Value("${application.storage.s3.path-style-access:true}")
+    private boolean pathStyleAccess;
+
+    @Value("${application.storage.s3.presign-ttl-minutes:15}")
+    private long presignTtlMinutes;
+
+    @Value("${application.storage.s3.part-size-mb:16}")
+    private int partSizeMb;
+
+    @PostConstruct
+    public void init() {
+        S3Configuration configuration = S3Configuration.builder()
+                .pathStyleAccessEnabled(pathStyleAccess)
+                .build();
+        S3ClientBuilder clientBuilder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentialsProvider())
+                .serviceConfiguration(configuration);
+        S3Presigner.Builder presignerBuilder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentialsProvider())
+                .serviceConfiguration(configuration);
+        if (!endpoint.isBlank()) {
+            clientBuilder.endpointOverride(URI.create(endpoint));
+            presignerBuilder.endpointOverride(URI.create(endpoint));
+        }
+        s3Client = clientBuilder.build();
+        s3Presigner = presignerBuilder.build();
+        LOGGER.info("Media is stored in bucket {} at {}", bucket, endpoint.isBlank() ? region : endpoint);
+    }
+
+    // without static keys the usual chain applies, e.g. environment variables or an instance role
+    private AwsCredentialsProvider credentialsProvider() {
+        if (accessKey.isBlank() || secretKey.isBlank()) {
+            return DefaultCredentialsProvider.create();
+        }
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        s3Presigner.close();
+        s3Client.close();
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        long size = Files.size(source);
+        long partSize = Math.max(MIN_PART_SIZE, (long) partSizeMb * 1024 * 1024);
+        try {
+            if (size <= partSize) {
+                s3Client.putObject(
+                        PutObjectRequest.builder().bucket(bucket).key(key).contentType(contentType).build(),
+                        RequestBody.fromFile(source)
+                );
+            } else {
+                putMultipart(key, source, contentType, size, (int) partSize);
+            }
+        } catch (SdkException exception) {
+            throw new IOException("Failed: to upload " + key + " to bucket " + bucket, exception);
+        }
+    }
+
+    // large files go up part by part, only one part is ever held in memory
+    private void putMultipart(String key, Path source, String contentType, long size, int partSize) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(request -> request
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+        ).uploadId();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            List<CompletedPart> parts = new ArrayList<>();
+            byte[] buffer = new byte[partSize];
+            long position = 0;
+            for (int partNumber = 1; position < size; partNumber++) {
+                int length = readFully(channel, ByteBuffer.wrap(buffer), position);
+                int currentPart = partNumber;
+                // the provider hands out a fresh stream over the same bytes, so the SDK can retry a part
+                UploadPartResponse response = s3Client.uploadPart(
+                        request -> request
+                                .bucket(bucket)
+                                .key(key)
+                                .uploadId(uploadId)
+                                .partNumber(currentPart)
+                                .contentLength((long) length),
+                        RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer, 0, length), length, contentType)
+                );
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+                position += length;
+            }
+            s3Client.completeMultipartUpload(request -> request
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(upload -> upload.parts(parts))
+            );
+        } catch (IOException | SdkException exception) {
+            // an abandoned upload keeps its parts around and they are billed until aborted
+            s3Client.abortMultipartUpload(request -> request.bucket(bucket).key(key).uploadId(uploadId));
+            throw exception;
+        }
+    }
+
+    private int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read == -1) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            s3Client.headObject(request -> request.bucket(bucket).key(key));
+            return true;
+        } catch (NoSuchKeyException exception) {
+            return false;
+        } catch (S3Exception exception) {
+            // HEAD responses carry no body, so a missing key only shows up as the status code
+            if (exception.statusCode() == 404) {
+                return false;
+            }
+            throw new IOException("Failed: to look up " + key + " in bucket " + bucket, exception);
+        } catch (SdkException exception) {
+            throw new IOException("Failed: to look up " + key + " in bucket " + bucket, exception);
+        }
+    }
+
+    @Override
+    public InputStream read(String key) throws IOException {
+        try {
+            return s3Client.getObject(request -> request.bucket(bucket).key(key));
+        } catch (NoSuchKeyException exception) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException exception) {
+            throw new IOException("Failed: to read " + key + " from bucket " + bucket, exception);
+        }
+    }
+
+    @Override
+    public LocalCopy localCopy(String key) throws IOException {
+        String fileName = key.substring(key.lastIndexOf('/') + 1);
+        // ffmpeg picks the demuxer from the extension when probing is ambiguous, so it is kept
+        Path tempPath = Files.createTempFile("streamify-", "-" + fileName);
+        try (ResponseInputStream<GetObjectResponse> input = s3Client.getObject(request -> request.bucket(bucket).key(key))) {
+            Files.copy(input, tempPath, StandardCopyOption.REPLACE_EXISTING);
+            return new LocalCopy(tempPath, true);
+        } catch (IOException | SdkException exception) {
+            Files.deleteIfExists(tempPath);
+            if (exception instanceof NoSuchKeyException) {
+                throw new NoSuchFileException(key);
+            }
+            throw exception instanceof IOException ioException
+                    ? ioException
+                    : new IOException("Failed: to download " + key + " from bucket " + bucket, exception);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3Client.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (SdkException exception) {
+            throw new IOException("Failed: to delete " + key + " from bucket " + bucket, exception);
+        }
+    }
+
+    @Override
+    public void deleteAll(String prefix) throws IOException {
+        try {
+            List<ObjectIdentifier> batch = new ArrayList<>();
+            for (S3Object object : s3Client.listObjectsV2Paginator(request -> request.bucket(bucket).prefix(prefix + "/")).contents()) {
+                batch.add(ObjectIdentifier.builder().key(object.key()).build());
+                if (batch.size() == MAX_KEYS_PER_DELETE) {
+                    deleteBatch(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                deleteBatch(batch);
+            }
+        } catch (SdkException exception) {
+            throw new IOException("Failed: to delete " + prefix + " from bucket " + bucket, exception);
+        }
+    }
+
+    private void deleteBatch(List<ObjectIdentifier> batch) {
+        s3Client.deleteObjects(request -> request
+                .bucket(bucket)
+                .delete(delete -> delete.objects(batch).quiet(true))
+        );
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return null;
+    }
+
+    // signed locally, no request to the store is made
+    @Override
+    public URI presignedGetUrl(String key) {
+        try {
+            return s3Presigner.presignGetObject(request -> request
+                    .signatureDuration(Duration.ofMinutes(presignTtlMinutes))
+                    .getObjectRequest(getObject -> getObject.bucket(bucket).key(key))
+            ).url().toURI();
+        } catch (URISyntaxException exception) {
+            throw new IllegalStateException("Failed: presigned url for " + key + " is not valid", exception);
+        }
+    }
+}
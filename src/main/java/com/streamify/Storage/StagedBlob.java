@@ -0,0 +1,6 @@
+package com.streamify.Storage;
+
+import java.nio.file.Path;
+
+public record StagedBlob(Path path, String hash, long size, String extension) {
+}
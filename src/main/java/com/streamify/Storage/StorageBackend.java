@@ -0,0 +1,56 @@
+package com.streamify.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// where blobs and their renditions live, keys are relative paths like ab/cd/{hash}.mp4
+public interface StorageBackend {
+    // the source is a staged file owned by the caller, a backend may move it instead of copying
+    void put(String key, Path source, String contentType) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    InputStream read(String key) throws IOException;
+
+    // ffmpeg and ImageIO need a real file, remote backends download the object into a temporary one
+    LocalCopy localCopy(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    void deleteAll(String prefix) throws IOException;
+
+    // the file behind the key when the backend keeps it on this node, null otherwise
+    Path localPath(String key);
+
+    // a time limited url the client downloads from directly, null when the backend has none
+    URI presignedGetUrl(String key);
+
+    // segments go first and the master playlist last, so a player never sees a playlist before its segments
+    default void putDirectory(String prefix, Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparingInt(StorageBackend::uploadOrder))
+                    .toList();
+        }
+        for (Path file : files) {
+            String key = prefix + "/" + directory.relativize(file).toString().replace(File.separator, "/");
+            put(key, file, file.toString().endsWith(".m3u8") ? "application/vnd.apple.mpegurl" : "video/mp2t");
+        }
+    }
+
+    private static int uploadOrder(Path file) {
+        String name = file.getFileName().toString();
+        if (name.equals("master.m3u8")) {
+            return 2;
+        }
+        return name.endsWith(".m3u8") ? 1 : 0;
+    }
+}
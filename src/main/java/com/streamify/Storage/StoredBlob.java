@@ -0,0 +1,5 @@
+package com.streamify.Storage;
+
+// isNew is false when the upload only added a reference to content that was stored before
+public record StoredBlob(MediaBlob blob, boolean isNew) {
+}
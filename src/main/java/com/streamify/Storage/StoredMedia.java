@@ -0,0 +1,6 @@
+package com.streamify.Storage;
+
+import com.streamify.ffmpeg.MediaMetadata;
+
+public record StoredMedia(String mediaUrl, String contentHash, MediaMetadata metadata) {
+}
@@ -4,6 +4,7 @@ import com.streamify.mail.*;
 import com.streamify.phone.PhoneService;
 import com.streamify.phone.SMSRequest;
 import com.streamify.security.JwtService;
+import com.streamify.security.PrincipalCache;
 import com.streamify.user.*;
 import jakarta.mail.MessagingException;
 import jakarta.persistence.EntityNotFoundException;
@@ -24,6 +25,9 @@ import java.util.*;
 
 @Service
 public class AuthenticationService {
+    // SecureRandom is thread safe, seeding a new one per code was the expensive part
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
     private final UserRepository userRepository;
     private final TokenRepository tokenRepository;
     private final MailService mailService;
@@ -31,6 +35,7 @@ public class AuthenticationService {
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
 
     @Value("${application.mailing.activation-url}")
     private String activationUrl;
@@ -38,7 +43,7 @@ public class AuthenticationService {
     @Value("${application.Security.jwt.expiration}")
     private long jwtExpiration;
 
-    public AuthenticationService(UserRepository authenticationRepository, TokenRepository tokenRepository, MailService mailService, PhoneService phoneService, AuthenticationManager authenticationManager, JwtService jwtService, PasswordEncoder passwordEncoder) {
+    public AuthenticationService(UserRepository authenticationRepository, TokenRepository tokenRepository, MailService mailService, PhoneService phoneService, AuthenticationManager authenticationManager, JwtService jwtService, PasswordEncoder passwordEncoder, PrincipalCache principalCache) {
         this.userRepository = authenticationRepository;
         this.tokenRepository = tokenRepository;
         this.mailService = mailService;
@@ -46,6 +51,7 @@ public class AuthenticationService {
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
     }
 
     public void register(RegistrationRequest request) throws Exception {
@@ -115,16 +121,14 @@ public class AuthenticationService {
                 .expiresAt(LocalDateTime.now().plusMinutes(15))
                 .user(user)
                 .build();
-        tokenRepository.save(token);
         return tokenRepository.save(token).getToken();
     }
 
-    private String generateActivationCode(int length) {
+    String generateActivationCode(int length) {
         String characters = "0123456789";
-        StringBuilder codeBuilder = new StringBuilder();
-        SecureRandom secureRandom = new SecureRandom();
+        StringBuilder codeBuilder = new StringBuilder(length);
         for (int i = 0; i < length; i++) {
-            int randomIdx = secureRandom.nextInt(characters.length());
+            int randomIdx = SECURE_RANDOM.nextInt(characters.length());
             codeBuilder.append(characters.charAt(randomIdx));
         }
         return codeBuilder.toString();
@@ -169,6 +173,7 @@ public class AuthenticationService {
         user.setAccountStatus(AccountStatus.ACTIVE);
         user.setVerified(true);
         userRepository.save(user);
+        principalCache.invalidate(user.getUsername());
 
         token.setValidatedAt(LocalDateTime.now());
         tokenRepository.save(token);
@@ -193,8 +198,6 @@ public class AuthenticationService {
                     .orElseThrow(() -> new EntityNotFoundException("User is not found with username: " + request.getIdentifier()));
         }
         claims.put("username", user.getUsername());
-        System.out.println("username: " + user.getUsername());
-        System.out.println("password: " + request.getPassword());
         if (request.isInternal()) {
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(user.getUsername(), request.getPassword())
@@ -305,7 +308,9 @@ public class AuthenticationService {
 
     private String resetPassword(User user, String newPassword) {
         user.setPassword(passwordEncoder.encode(newPassword));
-        return userRepository.save(user).getId();
+        String userId = userRepository.save(user).getId();
+        principalCache.invalidate(user.getUsername());
+        return userId;
     }
 
     private String shuffleAll(String string) {
@@ -2,10 +2,12 @@ package com.streamify.comment;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.streamify.common.UuidV7;
 import com.streamify.post.Post;
 import com.streamify.user.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -19,11 +21,18 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "comments")
+@DynamicUpdate
+@Table(
+        name = "comments",
+        indexes = {
+                @Index(name = "idx_comments_post_created", columnList = "post_id, created_at DESC, id DESC"),
+                @Index(name = "idx_comments_parent_created", columnList = "parent_comment_id, created_at DESC, id DESC")
+        }
+)
 @EntityListeners(AuditingEntityListener.class)
 public class Comment {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private String id;
 
     @Column(nullable = false, length = 2200)
@@ -54,6 +63,8 @@ public class Comment {
     @JoinColumn(name = "post_id")
     private Post post;
     private int likes;
+    // maintained with atomic updates next to every reply insert and delete, so reading it never touches the replies
+    private int replyCount;
 
     @Enumerated(EnumType.STRING)
     private CommentStatus status;
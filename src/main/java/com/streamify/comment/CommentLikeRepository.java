@@ -0,0 +1,31 @@
+package com.streamify.comment;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CommentLikeRepository extends JpaRepository<CommentLike, String> {
+    // returns 0 when the like already exists, so a double tap never counts twice
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "comment_likes"))
+    @Query(value = """
+            INSERT INTO comment_likes (id, comment_id, user_id, created_at)
+            VALUES (gen_random_uuid()::text, :commentId, :userId, CURRENT_TIMESTAMP)
+            ON CONFLICT (comment_id, user_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertLike(@Param("commentId") String commentId, @Param("userId") String userId);
+
+    @Modifying
+    @Query("""
+            DELETE FROM CommentLike commentLike
+            WHERE commentLike.comment.id = :commentId
+            AND commentLike.user.id = :userId
+            """)
+    int deleteLike(@Param("commentId") String commentId, @Param("userId") String userId);
+}
@@ -3,25 +3,153 @@ package com.streamify.comment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, String> {
     @Query("""
-            SELECT comment
+            SELECT comment.id AS id,
+                   comment.parentComment.id AS parentCommentId,
+                   comment.content AS content,
+                   comment.createdAt AS createdAt,
+                   comment.user.id AS userId,
+                   comment.likes AS likes,
+                   comment.replyCount AS replyCount
             FROM Comment comment
             WHERE comment.post.id = :postId
             AND comment.status = 'ACTIVE'
             """)
-    Page<Comment> findAllCommentByPostId(Pageable pageable, @Param("postId") String postId);
+    Page<CommentRow> findAllCommentByPostId(Pageable pageable, @Param("postId") String postId);
 
     @Query("""
-            SELECT comment
+            SELECT comment.id AS id,
+                   comment.parentComment.id AS parentCommentId,
+                   comment.content AS content,
+                   comment.createdAt AS createdAt,
+                   comment.user.id AS userId,
+                   comment.likes AS likes,
+                   comment.replyCount AS replyCount
             FROM Comment comment
             WHERE comment.parentComment.id = :commentId
             AND comment.status = 'ACTIVE'
             """)
-    Page<Comment> findAllCommentReplies(Pageable pageable, String commentId);
+    Page<CommentRow> findAllCommentReplies(Pageable pageable, String commentId);
+
+    @Query("""
+            SELECT comment.id AS id,
+                   comment.parentComment.id AS parentCommentId,
+                   comment.content AS content,
+                   comment.createdAt AS createdAt,
+                   comment.user.id AS userId,
+                   comment.likes AS likes,
+                   comment.replyCount AS replyCount
+            FROM Comment comment
+            WHERE comment.post.id = :postId
+            AND comment.status = 'ACTIVE'
+            AND (comment.createdAt < :createdAt
+                OR (comment.createdAt = :createdAt AND comment.id < :commentId))
+            ORDER BY comment.createdAt DESC, comment.id DESC
+            """)
+    List<CommentRow> findAllCommentByPostIdBefore(
+            @Param("postId") String postId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("commentId") String commentId,
+            Pageable pageable
+    );
+
+    @Query("""
+            SELECT comment.id AS id,
+                   comment.parentComment.id AS parentCommentId,
+                   comment.content AS content,
+                   comment.createdAt AS createdAt,
+                   comment.user.id AS userId,
+                   comment.likes AS likes,
+                   comment.replyCount AS replyCount
+            FROM Comment comment
+            WHERE comment.parentComment.id = :parentCommentId
+            AND comment.status = 'ACTIVE'
+            AND (comment.createdAt < :createdAt
+                OR (comment.createdAt = :createdAt AND comment.id < :commentId))
+            ORDER BY comment.createdAt DESC, comment.id DESC
+            """)
+    List<CommentRow> findAllCommentRepliesBefore(
+            @Param("parentCommentId") String parentCommentId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("commentId") String commentId,
+            Pageable pageable
+    );
+
+    @Modifying
+    @Query("""
+            UPDATE Comment comment
+            SET comment.likes = comment.likes + :delta
+            WHERE comment.id = :commentId
+            """)
+    int updateLikes(@Param("commentId") String commentId, @Param("delta") int delta);
+
+    // returns 0 when the comment does not exist, so the caller never has to load it
+    @Modifying
+    @Query("""
+            UPDATE Comment comment
+            SET comment.replyCount = comment.replyCount + :delta
+            WHERE comment.id = :commentId
+            """)
+    int updateReplyCount(@Param("commentId") String commentId, @Param("delta") int delta);
+
+    @Query("""
+            SELECT comment.id AS id,
+                   comment.parentComment.id AS parentCommentId,
+                   comment.content AS content,
+                   comment.createdAt AS createdAt,
+                   comment.user.id AS userId,
+                   comment.likes AS likes,
+                   comment.replyCount AS replyCount
+            FROM Comment comment
+            WHERE comment.post.id = :postId
+            AND comment.parentComment IS NULL
+            AND comment.status = 'ACTIVE'
+            AND (comment.createdAt < :createdAt
+                OR (comment.createdAt = :createdAt AND comment.id < :commentId))
+            ORDER BY comment.createdAt DESC, comment.id DESC
+            """)
+    List<CommentRow> findCommentThreadsBefore(
+            @Param("postId") String postId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("commentId") String commentId,
+            Pageable pageable
+    );
+
+    // the first replies of every parent on the page in one pass, ranked newest first inside each parent
+    @Query(value = """
+            SELECT reply.id AS "id",
+                   reply.parent_comment_id AS "parentCommentId",
+                   reply.content AS "content",
+                   reply.created_at AS "createdAt",
+                   reply.user_id AS "userId",
+                   reply.likes AS "likes",
+                   reply.reply_count AS "replyCount"
+            FROM (
+                SELECT comment.*,
+                       ROW_NUMBER() OVER (
+                           PARTITION BY comment.parent_comment_id
+                           ORDER BY comment.created_at DESC, comment.id DESC
+                       ) AS reply_rank
+                FROM comments comment
+                WHERE comment.parent_comment_id IN (:parentCommentIds)
+                AND comment.status = 'ACTIVE'
+            ) reply
+            WHERE reply.reply_rank <= :limit
+            ORDER BY reply.parent_comment_id, reply.reply_rank
+            """, nativeQuery = true)
+    List<CommentRow> findFirstReplies(
+            @Param("parentCommentIds") Collection<String> parentCommentIds,
+            @Param("limit") int limit
+    );
 }
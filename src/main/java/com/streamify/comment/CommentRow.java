@@ -0,0 +1,20 @@
+package com.streamify.comment;
+
+import java.time.LocalDateTime;
+
+// flat projection shared by the thread queries, no entity, collection or user is loaded
+public interface CommentRow {
+    String getId();
+
+    String getParentCommentId();
+
+    String getContent();
+
+    LocalDateTime getCreatedAt();
+
+    String getUserId();
+
+    int getLikes();
+
+    int getReplyCount();
+}
@@ -1,6 +1,8 @@
 package com.streamify.comment;
 
+import com.streamify.common.CursorPageResponse;
 import com.streamify.common.Mapper;
+import com.streamify.common.PageCursor;
 import com.streamify.common.PageResponse;
 import com.streamify.post.Post;
 import com.streamify.post.PostRepository;
@@ -13,18 +15,25 @@ import org.springframework.data.domain.Sort;
 import org.springframework.lang.NonNull;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class CommentService {
+    private static final int MAX_REPLIES_PER_THREAD = 10;
+
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
+    private final CommentLikeRepository commentLikeRepository;
     private final Mapper mapper;
 
-    public CommentService(CommentRepository commentRepository, PostRepository postRepository, Mapper mapper) {
+    public CommentService(CommentRepository commentRepository, PostRepository postRepository, CommentLikeRepository commentLikeRepository, Mapper mapper) {
         this.commentRepository = commentRepository;
         this.postRepository = postRepository;
+        this.commentLikeRepository = commentLikeRepository;
         this.mapper = mapper;
     }
 
@@ -60,54 +69,62 @@ public class CommentService {
         return commentRepository.save(comment).getId();
     }
 
+    @Transactional
     public String likeComment(String commentId, Authentication connectedUser) {
-        // todo - prevent the user to like multiple time
+        User user = (User) connectedUser.getPrincipal();
         Comment comment = findCommentById(commentId);
-        comment.setLikes(comment.getLikes() + 1);
-        return commentRepository.save(comment).getId();
+        // the counter only moves when the edge was actually inserted, so liking twice is a no-op
+        if (commentLikeRepository.insertLike(comment.getId(), user.getId()) == 1) {
+            commentRepository.updateLikes(comment.getId(), 1);
+        }
+        return comment.getId();
     }
 
+    @Transactional
     public String unlikeComment(String commentId, Authentication connectedUser) {
-        // todo - prevent the user to unlike multiple time
+        User user = (User) connectedUser.getPrincipal();
         Comment comment = findCommentById(commentId);
-        comment.setLikes(comment.getLikes() - 1);
-        return commentRepository.save(comment).getId();
+        if (commentLikeRepository.deleteLike(comment.getId(), user.getId()) == 1) {
+            commentRepository.updateLikes(comment.getId(), -1);
+        }
+        return comment.getId();
     }
 
+    @Transactional
     public Boolean deleteComment(String commentId, Authentication connectedUser) {
         User user = (User) connectedUser.getPrincipal();
         Comment comment = findCommentById(commentId);
         if (!comment.getUser().getId().equals(user.getId())) {
             throw new IllegalStateException("You don't have to authority to delete the comment");
         }
+        if (comment.getParentComment() != null) {
+            commentRepository.updateReplyCount(comment.getParentComment().getId(), -1);
+        }
         commentRepository.deleteById(comment.getId());
         return true;
     }
 
+    @Transactional
     public String sendReplyToComment(String postId, String commentId, String content, Authentication connectedUser) {
         User user = (User) connectedUser.getPrincipal();
-        Comment comment = findCommentById(commentId);
-        System.out.println("Comment: " + comment.getId());
+        // the counter update doubles as the existence check, the parent and its replies are never loaded
+        if (commentRepository.updateReplyCount(commentId, 1) == 0) {
+            throw new EntityNotFoundException("Comment is not found with ID: " + commentId);
+        }
         Comment reply = Comment.builder()
                 .content(content)
                 .user(user)
-                .parentComment(comment)
+                .parentComment(commentRepository.getReferenceById(commentId))
                 .status(CommentStatus.ACTIVE)
                 .build();
         commentRepository.save(reply);
-        if (!comment.getReplies().isEmpty()) {
-            List<Comment> replies = comment.getReplies();
-            replies.add(reply);
-        } else {
-            comment.setReplies(List.of(reply));
-        }
-        return commentRepository.save(comment).getId();
+        return commentId;
     }
 
     public PageResponse<CommentResponse> getAllPostComment(String postId, int page, int size) {
         Post post = findPostById(postId);
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Comment> comments = commentRepository.findAllCommentByPostId(pageable, post.getId());
+        Page<CommentRow> comments = commentRepository.findAllCommentByPostId(pageable, post.getId());
         List<CommentResponse> commentResponses = comments.stream()
                 .map(mapper::toCommentResponse)
                 .toList();
@@ -124,7 +141,7 @@ public class CommentService {
 
     public PageResponse<CommentResponse> getAllCommentReplies(String commentId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Comment> comments = commentRepository.findAllCommentReplies(pageable, commentId);
+        Page<CommentRow> comments = commentRepository.findAllCommentReplies(pageable, commentId);
         List<CommentResponse> commentResponses = comments.stream()
                 .map(mapper::toCommentRelyResponse)
                 .toList();
@@ -138,4 +155,57 @@ public class CommentService {
                 .last(comments.isLast())
                 .build();
     }
+
+    public CursorPageResponse<CommentResponse> getPostCommentsAfterCursor(String postId, String cursor, int size) {
+        Post post = findPostById(postId);
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        List<CommentRow> comments = commentRepository.findAllCommentByPostIdBefore(
+                post.getId(), pageCursor.createdAt(), pageCursor.id(), PageRequest.of(0, size + 1)
+        );
+        return CursorPageResponse.of(comments, size, comment -> new PageCursor(comment.getCreatedAt(), comment.getId()), mapper::toCommentResponse);
+    }
+
+    // one query for the page of top level comments and one for the first replies of all of them
+    public CursorPageResponse<CommentThreadResponse> getPostCommentThreads(String postId, String cursor, int size, int replies) {
+        Post post = findPostById(postId);
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        List<CommentRow> comments = commentRepository.findCommentThreadsBefore(
+                post.getId(), pageCursor.createdAt(), pageCursor.id(), PageRequest.of(0, size + 1)
+        );
+        int replyLimit = Math.min(Math.max(replies, 0), MAX_REPLIES_PER_THREAD);
+        List<String> commentIds = comments.stream()
+                .limit(size)
+                .map(CommentRow::getId)
+                .toList();
+        Map<String, List<CommentRow>> repliesByComment = replyLimit == 0 || commentIds.isEmpty()
+                ? Map.of()
+                : commentRepository.findFirstReplies(commentIds, replyLimit)
+                        .stream()
+                        .collect(Collectors.groupingBy(CommentRow::getParentCommentId));
+        return CursorPageResponse.of(
+                comments,
+                size,
+                comment -> new PageCursor(comment.getCreatedAt(), comment.getId()),
+                comment -> toCommentThreadResponse(comment, repliesByComment.getOrDefault(comment.getId(), List.of()))
+        );
+    }
+
+    private CommentThreadResponse toCommentThreadResponse(CommentRow comment, List<CommentRow> replies) {
+        boolean hasMoreReplies = comment.getReplyCount() > replies.size();
+        return CommentThreadResponse.builder()
+                .comment(mapper.toCommentResponse(comment))
+                .replies(replies.stream().map(mapper::toCommentResponse).toList())
+                .repliesCursor(hasMoreReplies && !replies.isEmpty()
+                        ? new PageCursor(replies.getLast().getCreatedAt(), replies.getLast().getId()).encode()
+                        : null)
+                .build();
+    }
+
+    public CursorPageResponse<CommentResponse> getCommentRepliesAfterCursor(String commentId, String cursor, int size) {
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        List<CommentRow> comments = commentRepository.findAllCommentRepliesBefore(
+                commentId, pageCursor.createdAt(), pageCursor.id(), PageRequest.of(0, size + 1)
+        );
+        return CursorPageResponse.of(comments, size, comment -> new PageCursor(comment.getCreatedAt(), comment.getId()), mapper::toCommentRelyResponse);
+    }
 }
@@ -0,0 +1,18 @@
+package com.streamify.comment;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class CommentThreadResponse {
+    private CommentResponse comment;
+    // the newest replies, newest first
+    private List<CommentResponse> replies;
+    // pass it to /{comment-id}/replies/cursor for the rest of the thread; null when every reply is shown
+    private String repliesCursor;
+}
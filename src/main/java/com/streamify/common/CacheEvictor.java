@@ -0,0 +1,41 @@
+package com.streamify.common;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+// counters and urls are written with native sql so hibernate keeps the rest of the region warm,
+// the rows that changed are evicted one by one instead
+@Service
+public class CacheEvictor {
+    private final EntityManagerFactory entityManagerFactory;
+
+    public CacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void evict(Class<?> entityClass, String id) {
+        evictAll(entityClass, List.of(id));
+    }
+
+    // inside a transaction the eviction waits for the commit, otherwise a concurrent read could cache the old row again
+    public void evictAll(Class<?> entityClass, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ids.forEach(id -> entityManagerFactory.getCache().evict(entityClass, id));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(id -> entityManagerFactory.getCache().evict(entityClass, id));
+            }
+        });
+    }
+}
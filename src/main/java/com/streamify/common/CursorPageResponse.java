@@ -0,0 +1,46 @@
+package com.streamify.common;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    // opaque, pass it back as ?cursor= to read the next page; null on the last page
+    private String nextCursor;
+    private boolean last;
+
+    // rows must be fetched with size + 1, the extra row only tells whether a next page exists
+    public static <E, T> CursorPageResponse<T> of(
+            List<E> rows,
+            int size,
+            Function<E, PageCursor> cursorOf,
+            Function<E, T> mapper
+    ) {
+        return ofPage(rows, size, cursorOf, page -> page.stream().map(mapper).toList());
+    }
+
+    // for mappers that batch their lookups over the whole page instead of going row by row
+    public static <E, T> CursorPageResponse<T> ofPage(
+            List<E> rows,
+            int size,
+            Function<E, PageCursor> cursorOf,
+            Function<List<E>, List<T>> pageMapper
+    ) {
+        boolean isLast = rows.size() <= size;
+        List<E> page = isLast ? rows : rows.subList(0, size);
+        return CursorPageResponse.<T>builder()
+                .content(pageMapper.apply(page))
+                .size(size)
+                .nextCursor(isLast || page.isEmpty() ? null : cursorOf.apply(page.getLast()).encode())
+                .last(isLast)
+                .build();
+    }
+}
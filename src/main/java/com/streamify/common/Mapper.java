@@ -2,6 +2,7 @@ package com.streamify.common;
 
 import com.streamify.comment.Comment;
 import com.streamify.comment.CommentResponse;
+import com.streamify.comment.CommentRow;
 import com.streamify.story.StoryReply;
 import com.streamify.story.StoryReplyResponse;
 import com.streamify.user.User;
@@ -17,7 +18,18 @@ public class Mapper {
                 .createdAt(comment.getCreatedAt())
                 .userId(comment.getUser().getId())
                 .likes(comment.getLikes())
-                .replies(comment.getReplies().size())
+                .replies(comment.getReplyCount())
+                .build();
+    }
+
+    public CommentResponse toCommentResponse(CommentRow comment) {
+        return CommentResponse.builder()
+                .id(comment.getId())
+                .content(comment.getContent())
+                .createdAt(comment.getCreatedAt())
+                .userId(comment.getUserId())
+                .likes(comment.getLikes())
+                .replies(comment.getReplyCount())
                 .build();
     }
 
@@ -31,6 +43,16 @@ public class Mapper {
                 .build();
     }
 
+    public CommentResponse toCommentRelyResponse(CommentRow comment) {
+        return CommentResponse.builder()
+                .id(comment.getId())
+                .content(comment.getContent())
+                .createdAt(comment.getCreatedAt())
+                .userId(comment.getUserId())
+                .likes(comment.getLikes())
+                .build();
+    }
+
     public StoryReplyResponse toStoryReplyResponse(StoryReply storyReply) {
         return StoryReplyResponse.builder()
                 .id(storyReply.getId())
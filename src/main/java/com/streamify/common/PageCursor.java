@@ -0,0 +1,34 @@
+package com.streamify.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// keyset position (createdAt, id) of the last row of a page, encoded as an opaque token
+public record PageCursor(LocalDateTime createdAt, String id) {
+    private static final String SEPARATOR = "|";
+
+    // sorts after every real row, so the first page uses the same keyset query as the others
+    private static final PageCursor FIRST = new PageCursor(LocalDateTime.of(9999, 12, 31, 0, 0), "");
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIdx = raw.indexOf(SEPARATOR);
+            return new PageCursor(
+                    LocalDateTime.parse(raw.substring(0, separatorIdx)),
+                    raw.substring(separatorIdx + 1)
+            );
+        } catch (RuntimeException exception) {
+            throw new IllegalArgumentException("Cursor is not valid: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.streamify.common;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+
+public class UuidV7Generator implements BeforeExecutionGenerator {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EnumSet.of(EventType.INSERT);
+    }
+
+    // RFC 9562 version 7: 48 bits of unix milliseconds first, so new rows land at the right edge of the primary key index
+    public static String next() {
+        byte[] random = new byte[10];
+        RANDOM.nextBytes(random);
+        long timestamp = System.currentTimeMillis();
+        long mostSigBits = (timestamp << 16) | 0x7000L | ((random[0] & 0x0FL) << 8) | (random[1] & 0xFFL);
+        long leastSigBits = 0x8000000000000000L | (ByteBuffer.wrap(random, 2, 8).getLong() & 0x3FFFFFFFFFFFFFFFL);
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+}
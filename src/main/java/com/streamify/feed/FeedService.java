@@ -0,0 +1,208 @@
+package com.streamify.feed;
+
+import com.streamify.common.CursorPageResponse;
+import com.streamify.common.PageCursor;
+import com.streamify.post.*;
+import com.streamify.user.FollowRepository;
+import com.streamify.user.User;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+public class FeedService {
+    private final Logger LOGGER = LoggerFactory.getLogger(FeedService.class);
+
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final PostRepository postRepository;
+    private final FollowRepository followRepository;
+    private final PostPageAssembler postPageAssembler;
+    private final PostLikeRepository postLikeRepository;
+    private final MeterRegistry meterRegistry;
+    private ThreadPoolExecutor workers;
+
+    // accounts above this follower count are merged into feeds on read instead of fanned out on write
+    @Value("${application.feed.fan-out-threshold:10000}")
+    private int fanOutThreshold;
+
+    @Value("${application.feed.backfill-size:20}")
+    private int backfillSize;
+
+    @Value("${application.feed.workers:4}")
+    private int workerCount;
+
+    @Value("${application.feed.queue-capacity:10000}")
+    private int queueCapacity;
+
+    public FeedService(TimelineEntryRepository timelineEntryRepository, PostRepository postRepository, FollowRepository followRepository, PostPageAssembler postPageAssembler, PostLikeRepository postLikeRepository, MeterRegistry meterRegistry) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.postRepository = postRepository;
+        this.followRepository = followRepository;
+        this.postPageAssembler = postPageAssembler;
+        this.postLikeRepository = postLikeRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        // a full queue makes the committing thread do the work itself instead of dropping timeline writes
+        AtomicInteger threadIdx = new AtomicInteger();
+        workers = new ThreadPoolExecutor(
+                workerCount,
+                workerCount,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "feed-worker-" + threadIdx.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        Gauge.builder("streamify.feed.queue.depth", workers, executor -> executor.getQueue().size())
+                .description("Timeline writes waiting for a feed worker")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    public void fanOutPost(String postId, String authorId, int authorFollowerCount, LocalDateTime createdAt) {
+        boolean includeFollowers = authorFollowerCount <= fanOutThreshold;
+        runAfterCommit("fan out of post " + postId, () -> {
+            int inserted = timelineEntryRepository.fanOutPost(postId, authorId, createdAt, includeFollowers);
+            DistributionSummary.builder("streamify.feed.fanout.rows")
+                    .description("Timeline rows written per fanned out post")
+                    .register(meterRegistry)
+                    .record(inserted);
+            LOGGER.info("Post {} fanned out to {} timelines", postId, inserted);
+        });
+    }
+
+    public void backfillTimeline(String followerId, String followedId) {
+        runAfterCommit("backfill of " + followerId + " from " + followedId, () ->
+                timelineEntryRepository.backfillTimeline(followerId, followedId, backfillSize)
+        );
+    }
+
+    public void removeAuthorFromTimeline(String ownerId, String authorId) {
+        runAfterCommit("removal of " + authorId + " from " + ownerId, () ->
+                timelineEntryRepository.deleteAllByOwnerIdAndAuthorId(ownerId, authorId)
+        );
+    }
+
+    // inside a transaction the write waits for the commit, so it never sees a post or follow that is rolled back
+    // and never runs before the row it reads is visible
+    private void runAfterCommit(String description, Runnable task) {
+        Runnable loggedTask = () -> {
+            try {
+                task.run();
+            } catch (RuntimeException exception) {
+                LOGGER.error("Timeline {} failed @error: {}", description, exception.getMessage());
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            workers.execute(loggedTask);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                workers.execute(loggedTask);
+            }
+        });
+    }
+
+    public void removePost(String postId) {
+        timelineEntryRepository.deleteAllByPostId(postId);
+    }
+
+    public CursorPageResponse<PostResponse> getFeed(String cursor, int size, Authentication connectedUser) {
+        return Timer.builder("streamify.feed.read")
+                .description("Time to assemble one page of the home feed")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(() -> loadFeed(cursor, size, connectedUser));
+    }
+
+    private CursorPageResponse<PostResponse> loadFeed(String cursor, int size, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        // one extra row tells whether there is a next page without a count query
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<PageCursor> pushed = timelineEntryRepository.findTimelinePage(user.getId(), pageCursor.createdAt(), pageCursor.id(), limit)
+                .stream()
+                .map(entry -> new PageCursor(entry.getCreatedAt(), entry.getPostId()))
+                .toList();
+
+        // fan-out-on-read for followed accounts that are too big to fan out on write
+        List<String> pulledAuthorIds = followRepository.findFollowingIdsWithFollowerCountAbove(user.getId(), fanOutThreshold);
+        List<PostRow> pulledPosts = pulledAuthorIds.isEmpty()
+                ? List.of()
+                : postRepository.findDisplayablePostsByAuthors(pulledAuthorIds, pageCursor.createdAt(), pageCursor.id(), limit);
+
+        List<PageCursor> merged = Stream.concat(
+                        pushed.stream(),
+                        pulledPosts.stream().map(post -> new PageCursor(post.createdAt(), post.id()))
+                )
+                .distinct()
+                .sorted(Comparator.comparing(PageCursor::createdAt).thenComparing(PageCursor::id).reversed())
+                .limit(size + 1L)
+                .toList();
+        boolean isLast = merged.size() <= size;
+        List<PageCursor> page = isLast ? merged : merged.subList(0, size);
+
+        Map<String, PostRow> postsById = postRepository.findPostRowsByIdIn(page.stream().map(PageCursor::id).toList())
+                .stream()
+                .collect(Collectors.toMap(PostRow::id, Function.identity()));
+        // entries of archived, hidden or deleted posts are skipped instead of shown
+        List<PostResponse> content = postPageAssembler.toPostResponses(page.stream()
+                .map(entry -> postsById.get(entry.id()))
+                .filter(Objects::nonNull)
+                .filter(post -> !post.isArchived() && post.visibility() == PostVisibility.PUBLIC)
+                .toList());
+        // one lookup for the whole page instead of asking per post
+        if (!content.isEmpty()) {
+            Set<String> likedPostIds = new HashSet<>(postLikeRepository.findLikedPostIds(
+                    user.getId(),
+                    content.stream().map(PostResponse::getId).toList()
+            ));
+            content.forEach(post -> post.setLikedByMe(likedPostIds.contains(post.getId())));
+        }
+        return CursorPageResponse.<PostResponse>builder()
+                .content(content)
+                .size(size)
+                .nextCursor(isLast || page.isEmpty() ? null : page.getLast().encode())
+                .last(isLast)
+                .build();
+    }
+}
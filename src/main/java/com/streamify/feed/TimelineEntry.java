@@ -0,0 +1,38 @@
+package com.streamify.feed;
+
+import com.streamify.common.UuidV7;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+        name = "timeline_entries",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"owner_id", "post_id"}),
+        indexes = @Index(name = "idx_timeline_entries_owner_created", columnList = "owner_id, created_at DESC, post_id DESC")
+)
+public class TimelineEntry {
+    @Id
+    @UuidV7
+    private String id;
+
+    // the user whose home feed holds this entry
+    @Column(name = "owner_id", nullable = false)
+    private String ownerId;
+
+    @Column(name = "post_id", nullable = false)
+    private String postId;
+
+    @Column(name = "author_id", nullable = false)
+    private String authorId;
+
+    // copied from the post, so the feed is ordered without joining posts
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
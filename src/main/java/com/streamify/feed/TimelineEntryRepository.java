@@ -0,0 +1,95 @@
+package com.streamify.feed;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, String> {
+    @Query("""
+            SELECT entry
+            FROM TimelineEntry entry
+            WHERE entry.ownerId = :ownerId
+            AND (entry.createdAt < :createdAt
+                OR (entry.createdAt = :createdAt AND entry.postId < :postId))
+            ORDER BY entry.createdAt DESC, entry.postId DESC
+            """)
+    List<TimelineEntry> findTimelinePage(
+            @Param("ownerId") String ownerId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("postId") String postId,
+            Pageable pageable
+    );
+
+    // fan-out-on-write done inside the database: one statement per post, whatever the follower count
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    @Query(value = """
+            INSERT INTO timeline_entries (id, owner_id, post_id, author_id, created_at)
+            SELECT gen_random_uuid()::text, owner.id, :postId, :authorId, :createdAt
+            FROM (
+                SELECT :authorId AS id
+                UNION
+                SELECT follow.follower_id AS id
+                FROM follows follow
+                WHERE follow.following_id = :authorId
+                AND :includeFollowers = true
+            ) owner
+            ON CONFLICT (owner_id, post_id) DO NOTHING
+            """, nativeQuery = true)
+    int fanOutPost(
+            @Param("postId") String postId,
+            @Param("authorId") String authorId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("includeFollowers") boolean includeFollowers
+    );
+
+    // 0 is PostVisibility.PUBLIC, written as a literal so it matches the predicate of idx_posts_user_displayable
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "timeline_entries"))
+    @Query(value = """
+            INSERT INTO timeline_entries (id, owner_id, post_id, author_id, created_at)
+            SELECT gen_random_uuid()::text, :ownerId, post.id, post.user_id, post.created_at
+            FROM posts post
+            WHERE post.user_id = :authorId
+            AND post.is_archived = false
+            AND post.visibility = 0
+            ORDER BY post.created_at DESC
+            LIMIT :limit
+            ON CONFLICT (owner_id, post_id) DO NOTHING
+            """, nativeQuery = true)
+    int backfillTimeline(
+            @Param("ownerId") String ownerId,
+            @Param("authorId") String authorId,
+            @Param("limit") int limit
+    );
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM TimelineEntry entry
+            WHERE entry.postId = :postId
+            """)
+    int deleteAllByPostId(@Param("postId") String postId);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM TimelineEntry entry
+            WHERE entry.ownerId = :ownerId
+            AND entry.authorId = :authorId
+            """)
+    int deleteAllByOwnerIdAndAuthorId(@Param("ownerId") String ownerId, @Param("authorId") String authorId);
+}
@@ -1,61 +1,90 @@
 package com.streamify.ffmpeg;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.HandlerMapping;
 
-import java.io.FileNotFoundException;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 
 @RestController
 @RequestMapping("ffmpeg")
 @Tag(name = "Ffmpeg")
 public class FfmpegController {
-    private final FfmpegService ffmpegService;
+    private final TranscodeService transcodeService;
+    private final MediaDeliveryService mediaDeliveryService;
+    private final ImagePreviewService imagePreviewService;
 
-    private static final Map<String, MediaType> MEDIA_TYPE_MAP = Map.of(
-            "jpg", MediaType.IMAGE_JPEG,
-            "jpeg", MediaType.IMAGE_JPEG,
-            "png", MediaType.IMAGE_PNG
-    );
-
-    public FfmpegController(FfmpegService ffmpegService) {
-        this.ffmpegService = ffmpegService;
+    public FfmpegController(TranscodeService transcodeService, MediaDeliveryService mediaDeliveryService, ImagePreviewService imagePreviewService) {
+        this.transcodeService = transcodeService;
+        this.mediaDeliveryService = mediaDeliveryService;
+        this.imagePreviewService = imagePreviewService;
     }
 
     @GetMapping("/image")
-    public ResponseEntity<Resource> getImage(
-            @RequestParam("file-url") String fileUrl
-    ) throws FileNotFoundException {
-        // set http response header
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(
-                MEDIA_TYPE_MAP.get(fileUrl.substring(fileUrl.lastIndexOf(".") + 1))
+    public void getImage(
+            @RequestParam("file-url") String fileUrl,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        mediaDeliveryService.serveByUrl(fileUrl, request, response);
+    }
+
+    @GetMapping("/media/**")
+    public void getMedia(
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        String pattern = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        mediaDeliveryService.serveByRelativePath(
+                new AntPathMatcher().extractPathWithinPattern(pattern, path),
+                request,
+                response
         );
-        return ResponseEntity
-                .status(HttpStatus.OK)
-                .headers(headers)
-                .body(ffmpegService.getImage(fileUrl));
     }
 
     @GetMapping("/image/preview/{file-url}/{scale}")
-    public ResponseEntity<Resource> getImagePreview(
+    public void getImagePreview(
             @PathVariable("file-url") String fileUrl,
-            @PathVariable("scale") String scale
-    ) {
-        // set http response header
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(
-                MEDIA_TYPE_MAP.get(fileUrl.substring(fileUrl.lastIndexOf(".") + 1))
+            @PathVariable("scale") String scale,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        String blobKey = mediaDeliveryService.blobKeyOf(fileUrl);
+        if (blobKey != null) {
+            mediaDeliveryService.serveBlob(imagePreviewService.getBlobPreview(blobKey, PreviewSize.fromScale(scale)), request, response);
+            return;
+        }
+        Path preview = imagePreviewService.getPreview(
+                mediaDeliveryService.resolveMediaUrl(fileUrl),
+                PreviewSize.fromScale(scale)
         );
+        mediaDeliveryService.serveFile(preview, request, response);
+    }
+
+    @GetMapping("/jobs/{job-id}")
+    public ResponseEntity<TranscodeJobResponse> getTranscodeJob(
+            @PathVariable("job-id") String jobId
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(transcodeService.findJobById(jobId));
+    }
+
+    @GetMapping("/jobs/target/{target-id}")
+    public ResponseEntity<List<TranscodeJobResponse>> getTranscodeJobsByTarget(
+            @PathVariable("target-id") String targetId
+    ) {
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .headers(headers)
-                .body(ffmpegService.getImagePreview(fileUrl, scale));
+                .body(transcodeService.findJobsByTargetId(targetId));
     }
 
 }
@@ -0,0 +1,54 @@
+package com.streamify.ffmpeg;
+
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// reads the key=value blocks of ffmpeg -progress pipe:1, every block ends with progress=continue or progress=end
+class FfmpegProgressParser implements Consumer<String> {
+    private final long durationMicros;
+    private final IntConsumer progressListener;
+    private long outTimeMicros;
+    private int lastPercent = -1;
+
+    FfmpegProgressParser(double durationSeconds, IntConsumer progressListener) {
+        this.durationMicros = (long) (durationSeconds * 1_000_000);
+        this.progressListener = progressListener;
+    }
+
+    @Override
+    public void accept(String line) {
+        int separator = line.indexOf('=');
+        if (separator < 0) {
+            return;
+        }
+        String key = line.substring(0, separator).trim();
+        String value = line.substring(separator + 1).trim();
+        switch (key) {
+            // out_time_ms is in microseconds as well, older builds only print that one
+            case "out_time_us", "out_time_ms" -> {
+                if (!value.equals("N/A")) {
+                    outTimeMicros = Long.parseLong(value);
+                }
+            }
+            case "progress" -> publish(value.equals("end") ? 100 : percent());
+            default -> {
+            }
+        }
+    }
+
+    private int percent() {
+        if (durationMicros <= 0) {
+            return 0;
+        }
+        // 100 is only reported by the end block, the muxer still has to finish the playlists
+        return (int) Math.min(99, outTimeMicros * 100 / durationMicros);
+    }
+
+    // listeners only hear about whole percent steps, so a slow job does not write on every block
+    private void publish(int percent) {
+        if (percent > lastPercent) {
+            lastPercent = percent;
+            progressListener.accept(percent);
+        }
+    }
+}
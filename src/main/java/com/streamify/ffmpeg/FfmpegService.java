@@ -1,284 +1,299 @@
 package com.streamify.ffmpeg;
 
-import com.streamify.post.Post;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streamify.Storage.ContentAddressedStore;
+import com.streamify.Storage.LocalCopy;
+import com.streamify.Storage.MediaBlob;
+import com.streamify.Storage.MediaBlobRepository;
+import com.streamify.Storage.StorageBackend;
+import com.streamify.common.CacheEvictor;
 import com.streamify.post.PostMedia;
 import com.streamify.post.PostMediaRepository;
-import com.streamify.post.PostRepository;
 import com.streamify.story.Story;
 import com.streamify.story.StoryRepository;
-import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
-import org.springframework.lang.NonNull;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.util.FileSystemUtils;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.function.IntConsumer;
 
 @Service
 public class FfmpegService {
     private final Logger LOGGER = LoggerFactory.getLogger(FfmpegService.class);
+    private static final int HLS_SEGMENT_SECONDS = 6;
 
-    private final PostRepository postRepository;
+    private final MediaBlobRepository mediaBlobRepository;
     private final PostMediaRepository postMediaRepository;
     private final StoryRepository storyRepository;
+    private final ContentAddressedStore contentAddressedStore;
+    private final StorageBackend storageBackend;
+    private final ProcessRunner processRunner;
+    private final ObjectMapper objectMapper;
+    private final CacheEvictor cacheEvictor;
 
-    @Value("${application.file.upload.content-base-url.post}")
-    private String postBaseUrl;
+    @Value("${application.ffmpeg.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath;
 
-    @Value("${application.file.upload.content-base-url.story}")
-    private String storyBaseUrl;
+    @Value("${application.ffmpeg.ffprobe-path:ffprobe}")
+    private String ffprobePath;
 
-    @Value("${application.file.upload.content-base-url.temp}")
-    private String tempUrl;
+    // 0 lets ffmpeg pick, otherwise caps the encoder threads of every job
+    @Value("${application.ffmpeg.threads:0}")
+    private int threads;
 
-    public FfmpegService(PostRepository postRepository, PostMediaRepository postMediaRepository, StoryRepository storyRepository) {
-        this.postRepository = postRepository;
+    @Value("${application.ffmpeg.transcode-timeout-minutes:20}")
+    private long transcodeTimeoutMinutes;
+
+    @Value("${application.ffmpeg.probe-timeout-seconds:30}")
+    private long probeTimeoutSeconds;
+
+    public FfmpegService(MediaBlobRepository mediaBlobRepository, PostMediaRepository postMediaRepository, StoryRepository storyRepository, ContentAddressedStore contentAddressedStore, StorageBackend storageBackend, ProcessRunner processRunner, ObjectMapper objectMapper, CacheEvictor cacheEvictor) {
+        this.mediaBlobRepository = mediaBlobRepository;
         this.postMediaRepository = postMediaRepository;
         this.storyRepository = storyRepository;
+        this.contentAddressedStore = contentAddressedStore;
+        this.storageBackend = storageBackend;
+        this.processRunner = processRunner;
+        this.objectMapper = objectMapper;
+        this.cacheEvictor = cacheEvictor;
     }
 
-    @PostConstruct
-    public void init() {
-        postBaseUrl = postBaseUrl.replace("/", File.separator);
-        tempUrl = tempUrl.replace("/", File.separator);
-    }
-
-    @Async
-    public void processPostVideoWithFfmpeg(Path fileUrl, String postId, String userId) throws IOException {
-        final String finalFileUploadPath = postBaseUrl + File.separator + userId + File.separator + postId;
-        File targetFolder = new File(finalFileUploadPath);
-        if (!targetFolder.exists()) {
-            boolean isFolderCreated = targetFolder.mkdirs();
-            if (!isFolderCreated) {
-                LOGGER.error("Failed to create the target folder");
-                throw new IllegalStateException("Failed to create the target folder");
-            }
-            LOGGER.info("Successfully create the target folder");
-        }
-        String targetFilePath = finalFileUploadPath + File.separator + UUID.randomUUID();
-        Path targetPath = Paths.get(targetFilePath);
-        // create the target folder for ffmpeg
-        boolean isTargetFolderCreated = new File(targetFilePath).mkdirs();
-        if (!isTargetFolderCreated) {
-            throw new IllegalStateException("Target folder for the ffmpeg is failed to create!");
+    public String processVideoBlob(String contentHash, IntConsumer progressListener) throws IOException {
+        MediaBlob blob = mediaBlobRepository.findById(contentHash)
+                .orElseThrow(() ->
+                        new EntityNotFoundException("Media blob is not found with hash: " + contentHash)
+                );
+        // an earlier job for the same content already produced the renditions
+        if (blob.getHlsKey() != null) {
+            return contentAddressedStore.mediaUrlOf(blob.getHlsKey());
         }
-        try {
-            Process process = getProcess(fileUrl, targetPath);
-            int status = process.waitFor();
-            LOGGER.info("Process: status is: {}", status);
-            ProcessHandle.Info info = process.info();
-            LOGGER.info(info.toString());
-            if (status != 0) {
-                throw new Exception("Failed: to process the video!");
+        String hlsKey = contentAddressedStore.hlsKeyOf(contentHash);
+        // a retry starts from a clean folder
+        storageBackend.deleteAll(hlsKey);
+        // a backend on this node takes the renditions in place, a remote one gets them uploaded once ffmpeg is done
+        Path localTarget = storageBackend.localPath(hlsKey);
+        Path targetPath = localTarget != null ? localTarget : Files.createTempDirectory("streamify-hls-");
+        Files.createDirectories(targetPath);
+        try (LocalCopy source = storageBackend.localCopy(blob.getStorageKey())) {
+            transcodeToHls(source.path(), targetPath, blob.getMetadata(), progressListener);
+            if (localTarget == null) {
+                storageBackend.putDirectory(hlsKey, targetPath);
             }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        } catch (Exception e) {
+        } catch (IOException | InterruptedException | IllegalStateException e) {
+            storageBackend.deleteAll(hlsKey);
             throw new RuntimeException(e);
+        } finally {
+            if (localTarget == null) {
+                FileSystemUtils.deleteRecursively(targetPath);
+            }
         }
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() ->
-                        new EntityNotFoundException("Post is not found with ID: " + postId)
-                );
-        PostMedia postMedia = post.getPostMedia().stream()
-                .filter(media ->
-                        media.getMediaUrl().equals(fileUrl.toString())
-                )
-                .findAny()
-                .orElseThrow(() ->
-                        new EntityNotFoundException("PostMedia is not found with URL: " + fileUrl.toString())
-                );
-        postMedia.setMediaUrl(targetPath.toString());
-        postMediaRepository.save(postMedia);
-
-        // remove the temp post video from the location
-        Files.delete(fileUrl);
-        LOGGER.info("Post Video Processing is done");
+        mediaBlobRepository.updateHlsKey(contentHash, hlsKey);
+        String mediaUrl = contentAddressedStore.mediaUrlOf(hlsKey);
+        // every post and story holding the content switches over, including duplicates uploaded during the transcode,
+        // the original stays with the blob so a reference taken in between never points at a missing file
+        postMediaRepository.updateMediaUrlByContentHash(contentHash, mediaUrl);
+        storyRepository.updateMediaUrlByContentHash(contentHash, mediaUrl);
+        // read after the update, so rows inserted in between are evicted as well
+        cacheEvictor.evictAll(PostMedia.class, postMediaRepository.findIdsByContentHash(contentHash));
+        cacheEvictor.evictAll(Story.class, storyRepository.findIdsByContentHash(contentHash));
+        LOGGER.info("Video Processing is done for blob {}", contentHash);
+        return mediaUrl;
     }
 
-    private static Process getProcess(Path fileUrl, Path targetPath) throws IOException {
-        String ffmpegCmd = String.format(
-                "ffmpeg -i \"%s\" -c:v libx264 -c:a aac -strict -2 -f hls -hls_time 10 -hls_list_size 0 -hls_segment_filename \"%s/segment_%%3d.ts\"  \"%s/master.m3u8\" ",
-                fileUrl,
-                targetPath,
-                targetPath
+    private void transcodeToHls(Path fileUrl, Path targetPath, MediaMetadata metadata, IntConsumer progressListener) throws IOException, InterruptedException {
+        // the upload already probed the source, only media stored before that is probed again
+        MediaMetadata source = metadata != null && metadata.getWidth() != null && metadata.getHeight() != null
+                ? metadata
+                : probeMetadata(fileUrl);
+        if (source.getWidth() == null || source.getHeight() == null) {
+            throw new IllegalStateException("Failed: no video stream found in " + fileUrl);
+        }
+        ProcessResult result = processRunner.run(
+                "ffmpeg",
+                buildHlsCommand(fileUrl, targetPath, source),
+                Duration.ofMinutes(transcodeTimeoutMinutes),
+                new FfmpegProgressParser(source.getDurationSeconds() == null ? 0 : source.getDurationSeconds(), progressListener)
         );
-        ProcessBuilder processBuilder = new ProcessBuilder("cmd.exe", "/c", ffmpegCmd);
-        processBuilder.inheritIO();
-        return processBuilder.start();
+        LOGGER.info("ffmpeg exit code for {} is: {}", fileUrl, result.exitCode());
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Failed: to process the video! ffmpeg exit code: " + result.exitCode() + " " + result.errorOutput());
+        }
     }
 
-    @Async
-    public void isValidReel(
-            @NonNull Path fileUrl,
-            @NonNull String postId
-    ) {
-        File file = new File(fileUrl.toString());
-        if (!file.exists()) {
-            throw new IllegalStateException("Enter valid file location for check the video is reel or not!");
+    private List<String> buildHlsCommand(Path fileUrl, Path targetPath, MediaMetadata source) {
+        // ffmpeg applies the rotation while decoding, so the ladder is picked from the displayed size
+        boolean isRotated = source.getRotation() != null && source.getRotation() % 180 == 90;
+        int width = isRotated ? source.getHeight() : source.getWidth();
+        int height = isRotated ? source.getWidth() : source.getHeight();
+        boolean hasAudio = source.getAudioCodec() != null;
+        List<HlsRendition> ladder = HlsRendition.ladderFor(width, height);
+        boolean isPortrait = height > width;
+
+        // one decode, split into every rendition of the ladder
+        StringBuilder filter = new StringBuilder("[0:v]split=" + ladder.size());
+        for (int i = 0; i < ladder.size(); i++) {
+            filter.append("[v").append(i).append("]");
+        }
+        for (int i = 0; i < ladder.size(); i++) {
+            int rungHeight = ladder.get(i).getHeight();
+            String scale = isPortrait ? rungHeight + ":-2" : "-2:" + rungHeight;
+            filter.append(";[v").append(i).append("]scale=").append(scale).append("[v").append(i).append("out]");
         }
-        try {
-            String ffmpegCmd = String.format(
-                    "ffprobe -i \"%s\" -show_entries format=duration -v quiet -of csv=\"p=0\"",
-                    fileUrl.toString()
-            );
-            ProcessBuilder processBuilder = new ProcessBuilder("cmd.exe", "/c", ffmpegCmd);
-            Process process = processBuilder.start();
 
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            StringBuilder durationInString = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                durationInString.append(line).append("\n");
-            }
-            int status = process.waitFor();
-            LOGGER.info("isValidReel Process status: {}", status);
-            ProcessHandle.Info info = process.info();
-            LOGGER.info(info.toString());
-            if (status != 0) {
-                throw new IllegalStateException("Failed: to process the video!");
-            }
-            if (durationInString.isEmpty()) {
-                throw new IllegalStateException("Failed: to process the video!");
+        // progress goes to stdout as key=value blocks, the human readable stats line is turned off
+        List<String> command = new ArrayList<>(List.of(ffmpegPath, "-y", "-nostdin", "-nostats", "-progress", "pipe:1"));
+        if (threads > 0) {
+            command.addAll(List.of("-threads", String.valueOf(threads)));
+        }
+        command.addAll(List.of("-i", fileUrl.toString(), "-filter_complex", filter.toString()));
+        if (threads > 0) {
+            command.addAll(List.of("-filter_complex_threads", String.valueOf(threads)));
+        }
+        StringJoiner streamMap = new StringJoiner(" ");
+        for (int i = 0; i < ladder.size(); i++) {
+            HlsRendition rendition = ladder.get(i);
+            command.addAll(List.of(
+                    "-map", "[v" + i + "out]",
+                    "-c:v:" + i, "libx264",
+                    "-b:v:" + i, rendition.getVideoBitrateKbps() + "k",
+                    "-maxrate:v:" + i, rendition.getMaxRateKbps() + "k",
+                    "-bufsize:v:" + i, rendition.getBufferSizeKbps() + "k"
+            ));
+            streamMap.add(hasAudio
+                    ? "v:" + i + ",a:" + i + ",name:" + rendition.getName()
+                    : "v:" + i + ",name:" + rendition.getName());
+        }
+        if (hasAudio) {
+            for (int i = 0; i < ladder.size(); i++) {
+                command.addAll(List.of(
+                        "-map", "0:a:0",
+                        "-c:a:" + i, "aac",
+                        "-b:a:" + i, ladder.get(i).getAudioBitrateKbps() + "k",
+                        "-ac", "2"
+                ));
             }
-            double duration = Double.parseDouble(durationInString.toString());
+        }
+        command.addAll(List.of(
+                "-preset", "veryfast",
+                // keyframes on segment boundaries keep the renditions switchable
+                "-force_key_frames", "expr:gte(t,n_forced*" + HLS_SEGMENT_SECONDS + ")",
+                "-sc_threshold", "0",
+                "-f", "hls",
+                "-hls_time", String.valueOf(HLS_SEGMENT_SECONDS),
+                "-hls_playlist_type", "vod",
+                "-hls_list_size", "0",
+                "-hls_segment_filename", targetPath + File.separator + "%v_segment_%03d.ts",
+                "-master_pl_name", "master.m3u8",
+                "-var_stream_map", streamMap.toString(),
+                targetPath + File.separator + "%v.m3u8"
+        ));
+        if (threads > 0) {
+            // output options apply to the encoders, the one before -i only covers decoding
+            command.addAll(command.size() - 1, List.of("-threads", String.valueOf(threads)));
+        }
+        return command;
+    }
 
-            // check the video is less than 90s
-            if (duration <= 90) {
-                Post post = postRepository.findById(postId)
-                        .orElseThrow(() ->
-                                new EntityNotFoundException("Post is not found with ID: " + postId)
-                        );
-                PostMedia postMedia = post.getPostMedia()
-                        .stream()
-                        .filter(media ->
-                                media.getMediaUrl().equals(fileUrl.toString())
-                        )
-                        .findAny()
-                        .orElseThrow(() ->
-                                new EntityNotFoundException("Reel is not found when we check the video duration")
-                        );
-                if (postMedia == null) {
-                    throw new IllegalStateException("The given URL is not include in the post");
+    public MediaMetadata probeMetadata(Path fileUrl) throws IOException, InterruptedException {
+        // one json pass over the container and every stream
+        JsonNode root = objectMapper.readTree(String.join("\n", probe(List.of(
+                ffprobePath, "-v", "error", "-print_format", "json", "-show_format", "-show_streams", fileUrl.toString()
+        ))));
+        JsonNode format = root.path("format");
+        MediaMetadata metadata = MediaMetadata.builder()
+                .durationSeconds(decimal(format.path("duration")))
+                .bitRate(wholeNumber(format.path("bit_rate")))
+                .build();
+        for (JsonNode stream : root.path("streams")) {
+            String codecType = stream.path("codec_type").asText();
+            // cover art of audio files is reported as a video stream as well
+            boolean isCoverArt = stream.path("disposition").path("attached_pic").asInt() == 1;
+            if (codecType.equals("video") && !isCoverArt && metadata.getVideoCodec() == null) {
+                metadata.setVideoCodec(stream.path("codec_name").asText(null));
+                metadata.setWidth(stream.path("width").isInt() ? stream.path("width").asInt() : null);
+                metadata.setHeight(stream.path("height").isInt() ? stream.path("height").asInt() : null);
+                metadata.setRotation(rotation(stream));
+                Double frameRate = frameRate(stream.path("avg_frame_rate").asText());
+                metadata.setFrameRate(frameRate != null ? frameRate : frameRate(stream.path("r_frame_rate").asText()));
+                if (metadata.getBitRate() == null) {
+                    metadata.setBitRate(wholeNumber(stream.path("bit_rate")));
                 }
-                post.setReel(true);
-                postRepository.save(post);
+            } else if (codecType.equals("audio") && metadata.getAudioCodec() == null) {
+                metadata.setAudioCodec(stream.path("codec_name").asText(null));
             }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
         }
+        return metadata;
     }
 
-    @Async
-    public void processStoryVideoWithFfmpeg(Path fileUrl, String storyId, String userId) throws IOException {
-        final String finalFileUploadPath = storyBaseUrl + File.separator + userId;
-        File targetFolder = new File(finalFileUploadPath);
-        if (!targetFolder.exists()) {
-            boolean isFolderCreated = targetFolder.mkdirs();
-            if (!isFolderCreated) {
-                LOGGER.error("Failed to create the target folder for story");
-                throw new IllegalStateException("Failed to create the target folder");
+    // the display matrix rotation is counter clockwise, the legacy rotate tag is clockwise
+    private Integer rotation(JsonNode stream) {
+        Integer degrees = null;
+        JsonNode rotateTag = stream.path("tags").path("rotate");
+        // a tag that is not a whole number is ignored, the display matrix or no rotation is used instead
+        if (!rotateTag.isMissingNode()) {
+            try {
+                degrees = Integer.valueOf(rotateTag.asText().trim());
+            } catch (NumberFormatException exception) {
+                degrees = null;
             }
-            LOGGER.info("Successfully create the target folder for story");
         }
-        String targetFilePath = finalFileUploadPath + File.separator + UUID.randomUUID();
-        Path targetPath = Paths.get(targetFilePath);
-        // create the target folder for ffmpeg
-        boolean isTargetFolderCreated = new File(targetFilePath).mkdirs();
-        if (!isTargetFolderCreated) {
-            throw new IllegalStateException("Target folder for the ffmpeg is failed to create!");
-        }
-        try {
-            Process process = getProcess(fileUrl, targetPath);
-            int status = process.waitFor();
-            LOGGER.info("Process for story: status is: {}", status);
-            ProcessHandle.Info info = process.info();
-            LOGGER.info(info.toString());
-            if (status != 0) {
-                throw new IllegalStateException("Failed: to process the video!");
+        for (JsonNode sideData : stream.path("side_data_list")) {
+            if (sideData.has("rotation")) {
+                degrees = -sideData.path("rotation").asInt();
             }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-        Story story = storyRepository.findById(storyId)
-                        .orElseThrow(() ->
-                                new EntityNotFoundException("Story is not found with ID: " + storyId));
-        if (!story.getMediaUrl().equals(fileUrl.toString())) {
-            Files.deleteIfExists(targetPath);
-            throw new IllegalStateException("Story media URL is not valid!");
         }
-        story.setMediaUrl(targetPath.toString());
-        storyRepository.save(story);
-        // remove the temp post video from the location
-        Files.delete(fileUrl);
-        LOGGER.info("Post Video Processing is done");
+        return degrees == null ? null : ((degrees % 360) + 360) % 360;
     }
 
-    public boolean isValidStoryVideo(MultipartFile sourceFile) throws IOException, InterruptedException {
-        File tempFolder = new File(tempUrl);
-        boolean isTempFolderCreated = !tempFolder.exists() && tempFolder.mkdirs();
-        LOGGER.info(isTempFolderCreated ? "Temp folder is created!" : "Temp folder is already created!");
-        Path targetFilePath = Paths.get(tempUrl, sourceFile.getOriginalFilename());
-        Files.write(targetFilePath, sourceFile.getBytes());
-
-        String ffmpegCmd = String.format(
-                "ffprobe -i \"%s\" -show_entries format=duration -v quiet -of csv=\"p=0\"",
-                targetFilePath.toString()
-        );
-        ProcessBuilder processBuilder = new ProcessBuilder("cmd.exe", "/c", ffmpegCmd);
-        Process process = processBuilder.start();
-
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-        StringBuilder durationInString = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            durationInString.append(line).append("\n");
+    // ffprobe reports frame rates as fractions, e.g. 30000/1001, and 0/0 when unknown
+    private Double frameRate(String fraction) {
+        String[] parts = fraction.split("/");
+        if (parts.length != 2) {
+            return null;
         }
-        int status = process.waitFor();
-        LOGGER.info("isValidStory Process status: {}", status);
-        ProcessHandle.Info info = process.info();
-        LOGGER.info(info.toString());
-        if (status != 0) {
-            throw new IllegalStateException("Failed: to process the video!");
+        try {
+            double denominator = Double.parseDouble(parts[1]);
+            return denominator == 0 ? null : Double.parseDouble(parts[0]) / denominator;
+        } catch (NumberFormatException exception) {
+            return null;
         }
-        if (durationInString.isEmpty()) {
-            throw new IllegalStateException("Failed: to process the video!");
+    }
+
+    // numbers come back as strings and N/A when the container does not know them
+    private Double decimal(JsonNode node) {
+        try {
+            return node.isMissingNode() ? null : Double.valueOf(node.asText());
+        } catch (NumberFormatException exception) {
+            return null;
         }
-        double duration = Double.parseDouble(durationInString.toString());
-        Files.deleteIfExists(targetFilePath);
-        return duration <= 15;
     }
 
-    public Resource getImagePreview(String fileUrl, String scale) {
-        scale = (scale == null || scale.isEmpty()) ? "200" : scale;
+    private Long wholeNumber(JsonNode node) {
         try {
-            ProcessBuilder processBuilder = new ProcessBuilder(
-                    "ffmpeg", "-i", fileUrl, "-vf", "scale=" + scale + ":-1", "-q:v", "5", "-f", "image2pipe", "pipe:1"
-            );
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-            return new InputStreamResource(process.getInputStream());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            return node.isMissingNode() ? null : Long.valueOf(node.asText());
+        } catch (NumberFormatException exception) {
+            return null;
         }
     }
 
-    public Resource getImage(String fileUrl) throws FileNotFoundException {
-        File image = new File(fileUrl);
-        if (!image.exists()) {
-            throw new EntityNotFoundException("Image is not found with URL: " + fileUrl);
+    private List<String> probe(List<String> command) throws IOException, InterruptedException {
+        List<String> lines = new ArrayList<>();
+        ProcessResult result = processRunner.run("ffprobe", command, Duration.ofSeconds(probeTimeoutSeconds), lines::add);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Failed: to probe " + command.get(command.size() - 1) + " ffprobe exit code: " + result.exitCode() + " " + result.errorOutput());
         }
-        InputStream inputStream = new FileInputStream(image);
-        return new InputStreamResource(inputStream);
+        return lines;
     }
 }
@@ -0,0 +1,45 @@
+package com.streamify.ffmpeg;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Getter
+public enum HlsRendition {
+    R240("240p", 240, 400, 64),
+    R480("480p", 480, 1400, 96),
+    R720("720p", 720, 2800, 128),
+    R1080("1080p", 1080, 5000, 192)
+    ;
+
+    private final String name;
+    // short side of the frame, so portrait videos keep the same ladder
+    private final int height;
+    private final int videoBitrateKbps;
+    private final int audioBitrateKbps;
+
+    HlsRendition(String name, int height, int videoBitrateKbps, int audioBitrateKbps) {
+        this.name = name;
+        this.height = height;
+        this.videoBitrateKbps = videoBitrateKbps;
+        this.audioBitrateKbps = audioBitrateKbps;
+    }
+
+    public int getMaxRateKbps() {
+        return videoBitrateKbps * 107 / 100;
+    }
+
+    public int getBufferSizeKbps() {
+        return videoBitrateKbps * 3 / 2;
+    }
+
+    // renditions that fit into the source; a source smaller than 240p still gets the lowest rung
+    public static List<HlsRendition> ladderFor(int sourceWidth, int sourceHeight) {
+        int shortSide = Math.min(sourceWidth, sourceHeight);
+        List<HlsRendition> ladder = Arrays.stream(values())
+                .filter(rendition -> rendition.getHeight() <= shortSide)
+                .toList();
+        return ladder.isEmpty() ? List.of(R240) : ladder;
+    }
+}
@@ -0,0 +1,296 @@
+package com.streamify.ffmpeg;
+
+import com.streamify.Storage.ContentAddressedStore;
+import com.streamify.Storage.LocalCopy;
+import com.streamify.Storage.MediaBlob;
+import com.streamify.Storage.MediaBlobRepository;
+import com.streamify.Storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Service
+public class ImagePreviewService {
+    private final Logger LOGGER = LoggerFactory.getLogger(ImagePreviewService.class);
+
+    // access-ordered, so iteration starts with the least recently used preview
+    private final LinkedHashMap<Path, Long> cacheIndex = new LinkedHashMap<>(16, 0.75f, true);
+    private final ProcessRunner processRunner;
+    private final StorageBackend storageBackend;
+    private final ContentAddressedStore contentAddressedStore;
+    private final MediaBlobRepository mediaBlobRepository;
+    private long cacheSize;
+    private Path cacheRoot;
+
+    @Value("${application.preview.cache-dir:./preview-cache}")
+    private String cacheDir;
+
+    @Value("${application.preview.max-cache-size-mb:512}")
+    private long maxCacheSizeMb;
+
+    @Value("${application.ffmpeg.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath;
+
+    public ImagePreviewService(ProcessRunner processRunner, StorageBackend storageBackend, ContentAddressedStore contentAddressedStore, MediaBlobRepository mediaBlobRepository) {
+        this.processRunner = processRunner;
+        this.storageBackend = storageBackend;
+        this.contentAddressedStore = contentAddressedStore;
+        this.mediaBlobRepository = mediaBlobRepository;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        cacheRoot = Paths.get(cacheDir).toAbsolutePath().normalize();
+        Files.createDirectories(cacheRoot);
+        // rebuild the LRU order from the previous run, oldest first
+        try (Stream<Path> previews = Files.list(cacheRoot)) {
+            previews.filter(path -> path.getFileName().toString().endsWith(".jpg"))
+                    .sorted(Comparator.comparingLong(this::lastModifiedMillis))
+                    .forEach(path -> register(path, sizeOf(path)));
+        }
+        LOGGER.info("Preview cache loaded with {} renditions ({} bytes)", cacheIndex.size(), cacheSize);
+    }
+
+    // blob previews live next to the blob in the storage backend, so every node serves the same renditions
+    @Async
+    public void generateBlobPreviews(String contentHash, String storageKey) {
+        try (LocalCopy source = storageBackend.localCopy(storageKey)) {
+            for (PreviewSize size : PreviewSize.values()) {
+                try {
+                    storeBlobPreview(source.path(), contentAddressedStore.previewKeyOf(contentHash, size.getName()), size);
+                } catch (IOException | RuntimeException exception) {
+                    LOGGER.warn("Preview {} for {} was not generated @error: {}", size.getName(), storageKey, exception.getMessage());
+                }
+            }
+        } catch (IOException exception) {
+            LOGGER.warn("Previews for {} were not generated @error: {}", storageKey, exception.getMessage());
+        }
+    }
+
+    // returns the storage key of the preview, rendered now if the upload did not get to it
+    public String getBlobPreview(String blobKey, PreviewSize size) throws IOException {
+        String contentHash = contentAddressedStore.hashOf(blobKey);
+        String previewKey = contentAddressedStore.previewKeyOf(contentHash, size.getName());
+        if (storageBackend.exists(previewKey)) {
+            return previewKey;
+        }
+        MediaBlob blob = mediaBlobRepository.findById(contentHash)
+                .orElseThrow(() ->
+                        new EntityNotFoundException("Media blob is not found with hash: " + contentHash)
+                );
+        try (LocalCopy source = storageBackend.localCopy(blob.getStorageKey())) {
+            storeBlobPreview(source.path(), previewKey, size);
+        }
+        return previewKey;
+    }
+
+    private void storeBlobPreview(Path sourcePath, String previewKey, PreviewSize size) throws IOException {
+        Path tempPath = cacheRoot.resolve(UUID.randomUUID() + ".part");
+        try {
+            render(sourcePath, tempPath, size.getWidth());
+            storageBackend.put(previewKey, tempPath, "image/jpeg");
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    // previews of media outside the content addressed store are cached on this node only
+    public Path getPreview(Path sourcePath, PreviewSize size) throws IOException {
+        Path previewPath = cacheRoot.resolve(cacheKey(sourcePath) + "-" + size.getName() + ".jpg");
+        if (isCached(previewPath)) {
+            return previewPath;
+        }
+        Path tempPath = previewPath.resolveSibling(previewPath.getFileName() + "." + UUID.randomUUID() + ".part");
+        try {
+            render(sourcePath, tempPath, size.getWidth());
+            try {
+                Files.move(tempPath, previewPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(tempPath, previewPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+        register(previewPath, Files.size(previewPath));
+        return previewPath;
+    }
+
+    private void render(Path sourcePath, Path targetPath, int maxWidth) throws IOException {
+        if (!resizeInJvm(sourcePath, targetPath, maxWidth)) {
+            // formats ImageIO can't decode (e.g. webp) still go through ffmpeg
+            resizeWithFfmpeg(sourcePath, targetPath, maxWidth);
+        }
+    }
+
+    private boolean isCached(Path previewPath) {
+        synchronized (cacheIndex) {
+            if (cacheIndex.get(previewPath) == null) {
+                return false;
+            }
+        }
+        if (Files.exists(previewPath)) {
+            return true;
+        }
+        synchronized (cacheIndex) {
+            Long removedSize = cacheIndex.remove(previewPath);
+            cacheSize -= removedSize == null ? 0 : removedSize;
+        }
+        return false;
+    }
+
+    private void register(Path previewPath, long size) {
+        long maxCacheBytes = maxCacheSizeMb * 1024 * 1024;
+        List<Path> evicted = new ArrayList<>();
+        synchronized (cacheIndex) {
+            Long previousSize = cacheIndex.put(previewPath, size);
+            cacheSize += size - (previousSize == null ? 0 : previousSize);
+            Iterator<Map.Entry<Path, Long>> iterator = cacheIndex.entrySet().iterator();
+            while (cacheSize > maxCacheBytes && iterator.hasNext()) {
+                Map.Entry<Path, Long> eldest = iterator.next();
+                if (eldest.getKey().equals(previewPath)) {
+                    continue;
+                }
+                cacheSize -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                iterator.remove();
+            }
+        }
+        for (Path path : evicted) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException exception) {
+                LOGGER.warn("Evicted preview {} was not deleted @error: {}", path, exception.getMessage());
+            }
+        }
+    }
+
+    // reads only the image header, the pixels are never decoded
+    public MediaMetadata readImageMetadata(Path sourcePath) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(sourcePath.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return MediaMetadata.builder()
+                        .width(reader.getWidth(0))
+                        .height(reader.getHeight(0))
+                        .build();
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private boolean resizeInJvm(Path sourcePath, Path targetPath, int maxWidth) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(sourcePath.toFile())) {
+            if (input == null) {
+                return false;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return false;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                // decode only every n-th pixel of large photos instead of the full frame
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, sourceWidth / (maxWidth * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage source = reader.read(0, param);
+
+                int width = Math.min(maxWidth, source.getWidth());
+                int height = Math.max(1, (int) Math.round(source.getHeight() * (width / (double) source.getWidth())));
+                BufferedImage preview = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D graphics = preview.createGraphics();
+                try {
+                    graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                    // jpeg has no alpha channel, so transparent pixels become white
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                    graphics.drawImage(source, 0, 0, width, height, null);
+                } finally {
+                    graphics.dispose();
+                }
+                return ImageIO.write(preview, "jpg", targetPath.toFile());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void resizeWithFfmpeg(Path sourcePath, Path targetPath, int maxWidth) throws IOException {
+        List<String> command = List.of(
+                ffmpegPath, "-y", "-nostdin", "-i", sourcePath.toString(),
+                "-vf", "scale=w=min(" + maxWidth + "\\,iw):h=-2",
+                "-frames:v", "1", "-q:v", "5", "-f", "image2", "-c:v", "mjpeg",
+                targetPath.toString()
+        );
+        ProcessResult result;
+        try {
+            result = processRunner.run("ffmpeg", command, Duration.ofSeconds(30), line -> {
+            });
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Failed: preview generation was interrupted for " + sourcePath);
+        }
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Failed: to generate the preview for " + sourcePath);
+        }
+    }
+
+    // the modification time is part of the key, so replaced content never serves a stale preview
+    private String cacheKey(Path sourcePath) throws IOException {
+        String identity = sourcePath.toAbsolutePath().normalize() + "@" + Files.getLastModifiedTime(sourcePath).toMillis();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(identity.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private long lastModifiedMillis(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException exception) {
+            return 0;
+        }
+    }
+
+    private long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException exception) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.streamify.ffmpeg;
+
+import com.streamify.Storage.ContentAddressedStore;
+import com.streamify.Storage.StorageBackend;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class MediaDeliveryService {
+    // request attributes understood by Tomcat's NIO connector for kernel sendfile
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+            Map.entry("jpg", "image/jpeg"),
+            Map.entry("jpeg", "image/jpeg"),
+            Map.entry("png", "image/png"),
+            Map.entry("gif", "image/gif"),
+            Map.entry("webp", "image/webp"),
+            Map.entry("m3u8", "application/vnd.apple.mpegurl"),
+            Map.entry("ts", "video/mp2t"),
+            Map.entry("mp4", "video/mp4"),
+            Map.entry("mov", "video/quicktime"),
+            Map.entry("webm", "video/webm")
+    );
+
+    // segments and images never change once written, playlists are only cached briefly
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String PLAYLIST_CACHE_CONTROL = "public, max-age=60";
+
+    @Value("${application.file.upload.content-base-url.post}")
+    private String postBaseUrl;
+
+    @Value("${application.file.upload.content-base-url.story}")
+    private String storyBaseUrl;
+
+    private final StorageBackend storageBackend;
+    private final ContentAddressedStore contentAddressedStore;
+    private Map<String, Path> roots;
+
+    public MediaDeliveryService(StorageBackend storageBackend, ContentAddressedStore contentAddressedStore) {
+        this.storageBackend = storageBackend;
+        this.contentAddressedStore = contentAddressedStore;
+    }
+
+    @PostConstruct
+    public void init() {
+        Path postRoot = Paths.get(postBaseUrl).toAbsolutePath().normalize();
+        Path storyRoot = Paths.get(storyBaseUrl).toAbsolutePath().normalize();
+        roots = Map.of(
+                postRoot.getFileName().toString(), postRoot,
+                storyRoot.getFileName().toString(), storyRoot
+        );
+    }
+
+    public void serveByUrl(String fileUrl, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String blobKey = contentAddressedStore.keyOf(fileUrl);
+        if (blobKey != null) {
+            serveBlob(blobKey, request, response);
+            return;
+        }
+        serveFile(resolveMediaUrl(fileUrl), request, response);
+    }
+
+    public String blobKeyOf(String fileUrl) {
+        return contentAddressedStore.keyOf(fileUrl);
+    }
+
+    // a remote backend hands out a presigned url, so segment and image bytes never pass through this node
+    public void serveBlob(String key, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path localFile = storageBackend.localPath(key);
+        if (localFile != null) {
+            serveFile(localFile, request, response);
+            return;
+        }
+        // segments are referenced relatively, they only resolve against this endpoint if the playlist is served from here
+        if ("m3u8".equals(getFileExtension(key))) {
+            servePlaylist(key, response);
+            return;
+        }
+        URI presignedUrl = storageBackend.presignedGetUrl(key);
+        if (presignedUrl == null) {
+            throw new EntityNotFoundException("Media is not found with path: " + key);
+        }
+        // the redirect must not outlive the signature
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-store");
+        response.sendRedirect(presignedUrl.toString());
+    }
+
+    private void servePlaylist(String key, HttpServletResponse response) throws IOException {
+        try (InputStream input = storageBackend.read(key)) {
+            response.setContentType(CONTENT_TYPES.get("m3u8"));
+            response.setHeader(HttpHeaders.CACHE_CONTROL, PLAYLIST_CACHE_CONTROL);
+            input.transferTo(response.getOutputStream());
+        } catch (NoSuchFileException exception) {
+            throw new EntityNotFoundException("Media is not found with path: " + key);
+        }
+    }
+
+    public Path resolveMediaUrl(String fileUrl) {
+        Path file = Paths.get(fileUrl).toAbsolutePath().normalize();
+        boolean isInsideRoot = roots.values()
+                .stream()
+                .anyMatch(file::startsWith);
+        if (!isInsideRoot) {
+            throw new EntityNotFoundException("Media is not found with URL: " + fileUrl);
+        }
+        return file;
+    }
+
+    // the relative path starts with the asset folder name, e.g. post-assets/{user-id}/{post-id}/{hls}/master.m3u8
+    // or media-blobs/{ab}/{cd}/{hash}-hls/master.m3u8,
+    // so relative URLs inside HLS playlists resolve against the same endpoint
+    public void serveByRelativePath(String relativePath, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String blobKey = contentAddressedStore.keyOf(relativePath);
+        if (blobKey != null) {
+            serveBlob(blobKey, request, response);
+            return;
+        }
+        int separatorIdx = relativePath.indexOf('/');
+        Path root = separatorIdx == -1 ? null : roots.get(relativePath.substring(0, separatorIdx));
+        if (root == null) {
+            throw new EntityNotFoundException("Media is not found with path: " + relativePath);
+        }
+        Path file = root.resolve(relativePath.substring(separatorIdx + 1)).normalize();
+        if (!file.startsWith(root)) {
+            throw new EntityNotFoundException("Media is not found with path: " + relativePath);
+        }
+        serveFile(file, request, response);
+    }
+
+    public void serveFile(Path file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            throw new EntityNotFoundException("Media is not found with URL: " + file);
+        }
+        final long length = Files.size(file);
+        final long lastModified = Files.getLastModifiedTime(file).toMillis();
+        final String eTag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        final String extension = getFileExtension(file.getFileName().toString());
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(
+                HttpHeaders.CACHE_CONTROL,
+                "m3u8".equals(extension) ? PLAYLIST_CACHE_CONTROL : IMMUTABLE_CACHE_CONTROL
+        );
+        // sets ETag/Last-Modified and answers 304 for a matching If-None-Match/If-Modified-Since
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        boolean isPartial = false;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && isIfRangeSatisfied(request, eTag, lastModified)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // multipart/byteranges is not worth it for media, a full 200 is a valid answer
+                if (ranges.size() == 1) {
+                    start = ranges.getFirst().getRangeStart(length);
+                    end = ranges.getFirst().getRangeEnd(length);
+                    isPartial = true;
+                }
+            } catch (IllegalArgumentException exception) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+
+        final long contentLength = length == 0 ? 0 : end - start + 1;
+        response.setContentType(CONTENT_TYPES.getOrDefault(extension, "application/octet-stream"));
+        response.setContentLengthLong(contentLength);
+        if (isPartial) {
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        if ("HEAD".equals(request.getMethod()) || contentLength == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // the connector streams the file with sendfile after the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel outputChannel = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = contentLength;
+            while (remaining > 0) {
+                long transferred = fileChannel.transferTo(position, remaining, outputChannel);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    private boolean isIfRangeSatisfied(HttpServletRequest request, String eTag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(eTag);
+        }
+        try {
+            long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return lastModified / 1000 <= ifRangeDate / 1000;
+        } catch (IllegalArgumentException exception) {
+            return false;
+        }
+    }
+
+    private String getFileExtension(String filename) {
+        int lastDotIdx = filename.lastIndexOf(".");
+        if (lastDotIdx == -1) {
+            return "";
+        }
+        return filename.substring(lastDotIdx + 1).toLowerCase();
+    }
+}
@@ -0,0 +1,23 @@
+package com.streamify.ffmpeg;
+
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+// probed once at upload, clients use the dimensions and duration as layout hints before the media loads
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class MediaMetadata {
+    private Double durationSeconds;
+    private Integer width;
+    private Integer height;
+    // clockwise degrees the player has to rotate the frame, phones record portrait video as rotated landscape
+    private Integer rotation;
+    private String videoCodec;
+    private String audioCodec;
+    private Long bitRate;
+    private Double frameRate;
+}
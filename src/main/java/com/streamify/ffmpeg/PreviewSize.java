@@ -0,0 +1,42 @@
+package com.streamify.ffmpeg;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+@Getter
+public enum PreviewSize {
+    SMALL("small", 150),
+    MEDIUM("medium", 320),
+    LARGE("large", 640)
+    ;
+
+    private final String name;
+    private final int width;
+
+    PreviewSize(String name, int width) {
+        this.name = name;
+        this.width = width;
+    }
+
+    // accepts a size name or a pixel width, which is snapped to the closest fixed size
+    public static PreviewSize fromScale(String scale) {
+        if (scale == null || scale.isBlank()) {
+            return SMALL;
+        }
+        for (PreviewSize size : values()) {
+            if (size.getName().equalsIgnoreCase(scale)) {
+                return size;
+            }
+        }
+        try {
+            int requestedWidth = Integer.parseInt(scale.trim());
+            return Arrays.stream(values())
+                    .min(Comparator.comparingInt(size -> Math.abs(size.getWidth() - requestedWidth)))
+                    .orElse(SMALL);
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Preview size must be one of small, medium, large or a width in pixels");
+        }
+    }
+}
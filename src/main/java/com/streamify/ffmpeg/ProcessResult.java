@@ -0,0 +1,7 @@
+package com.streamify.ffmpeg;
+
+public record ProcessResult(int exitCode, String errorOutput) {
+    public boolean isSuccess() {
+        return exitCode == 0;
+    }
+}
@@ -0,0 +1,117 @@
+package com.streamify.ffmpeg;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// runs ffmpeg and ffprobe from an argument list, never through a shell, so file names are passed as they are
+@Component
+public class ProcessRunner {
+    private final Logger LOGGER = LoggerFactory.getLogger(ProcessRunner.class);
+    private static final int ERROR_TAIL_LINES = 20;
+    private static final Duration KILL_GRACE_PERIOD = Duration.ofSeconds(5);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.ffmpeg.nice:10}")
+    private int niceness;
+
+    public ProcessRunner(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ProcessResult run(String tool, List<String> command, Duration timeout, Consumer<String> outputHandler) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(withNiceness(command)).start();
+        // ffmpeg listens on stdin for interactive keys, closing it keeps a worker from ever waiting on it
+        process.getOutputStream().close();
+
+        // both pipes are drained while the process runs, a full pipe would otherwise block ffmpeg forever
+        Deque<String> errorTail = new ArrayDeque<>(ERROR_TAIL_LINES);
+        Thread outputDrainer = Thread.ofVirtual()
+                .name(tool + "-stdout-" + process.pid())
+                .start(() -> drain(process.getInputStream(), outputHandler));
+        Thread errorDrainer = Thread.ofVirtual()
+                .name(tool + "-stderr-" + process.pid())
+                .start(() -> drain(process.getErrorStream(), line -> {
+                    synchronized (errorTail) {
+                        if (errorTail.size() == ERROR_TAIL_LINES) {
+                            errorTail.removeFirst();
+                        }
+                        errorTail.addLast(line);
+                    }
+                }));
+        try {
+            if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                kill(process);
+                recordExit(tool, "timeout");
+                throw new IllegalStateException("Failed: " + tool + " did not finish within " + timeout.toSeconds() + "s");
+            }
+        } catch (InterruptedException exception) {
+            kill(process);
+            throw exception;
+        }
+        outputDrainer.join(KILL_GRACE_PERIOD);
+        errorDrainer.join(KILL_GRACE_PERIOD);
+        recordExit(tool, String.valueOf(process.exitValue()));
+        synchronized (errorTail) {
+            return new ProcessResult(process.exitValue(), String.join("\n", errorTail));
+        }
+    }
+
+    private List<String> withNiceness(List<String> command) {
+        // transcodes yield the cpu to request threads, nice only exists on unix like systems
+        if (niceness <= 0 || File.separatorChar != '/') {
+            return command;
+        }
+        List<String> nicedCommand = new ArrayList<>(command.size() + 3);
+        nicedCommand.addAll(List.of("nice", "-n", String.valueOf(niceness)));
+        nicedCommand.addAll(command);
+        return nicedCommand;
+    }
+
+    private void drain(InputStream stream, Consumer<String> lineHandler) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    lineHandler.accept(line);
+                } catch (RuntimeException exception) {
+                    // a broken handler must not stop the draining, the process would block on the pipe
+                    LOGGER.warn("Failed to handle process output line @error: {}", exception.getMessage());
+                }
+            }
+        } catch (IOException exception) {
+            // the stream is closed when the process is killed
+            LOGGER.debug("Process output stream closed @error: {}", exception.getMessage());
+        }
+    }
+
+    private void kill(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(KILL_GRACE_PERIOD.toMillis(), TimeUnit.MILLISECONDS)) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+
+    private void recordExit(String tool, String exitCode) {
+        Counter.builder("streamify.ffmpeg.exits")
+                .description("Finished ffmpeg and ffprobe processes by exit code")
+                .tags("tool", tool, "exit_code", exitCode)
+                .register(meterRegistry)
+                .increment();
+    }
+}
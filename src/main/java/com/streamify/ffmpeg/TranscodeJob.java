@@ -0,0 +1,69 @@
+package com.streamify.ffmpeg;
+
+import com.streamify.common.UuidV7;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "transcode_jobs")
+@EntityListeners(AuditingEntityListener.class)
+public class TranscodeJob {
+    @Id
+    @UuidV7
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TranscodeTarget target;
+
+    // post or story id, depending on the target
+    @Column(nullable = false)
+    private String targetId;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(nullable = false)
+    private String sourceUrl;
+
+    // the media blob that is transcoded, its output is shared by every post and story with the same content
+    @Column(length = 64)
+    private String contentHash;
+    private String outputUrl;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TranscodeStatus status;
+
+    private int priority;
+    private int attempts;
+
+    // percent of the source duration encoded so far, reported by ffmpeg -progress
+    private int progress;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(insertable = false)
+    private LocalDateTime updatedAt;
+}
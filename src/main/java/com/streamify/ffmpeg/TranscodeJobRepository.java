@@ -0,0 +1,84 @@
+package com.streamify.ffmpeg;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TranscodeJobRepository extends JpaRepository<TranscodeJob, String> {
+    @Query("""
+            SELECT job
+            FROM TranscodeJob job
+            WHERE job.status = com.streamify.ffmpeg.TranscodeStatus.QUEUED
+            AND job.nextAttemptAt <= :now
+            ORDER BY job.priority DESC, job.createdAt ASC
+            """)
+    List<TranscodeJob> findRunnableJobs(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE TranscodeJob job
+            SET job.status = com.streamify.ffmpeg.TranscodeStatus.RUNNING,
+                job.attempts = job.attempts + 1,
+                job.progress = 0,
+                job.startedAt = :now
+            WHERE job.id = :jobId
+            AND job.status = com.streamify.ffmpeg.TranscodeStatus.QUEUED
+            """)
+    int claimJob(@Param("jobId") String jobId, @Param("now") LocalDateTime now);
+
+    // claimJob already counted the attempt that went stale, a job that keeps killing its worker stops here
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE TranscodeJob job
+            SET job.status = com.streamify.ffmpeg.TranscodeStatus.FAILED,
+                job.lastError = :error,
+                job.finishedAt = :now
+            WHERE job.status = com.streamify.ffmpeg.TranscodeStatus.RUNNING
+            AND job.startedAt < :staleBefore
+            AND job.attempts >= :maxAttempts
+            """)
+    int failStaleJobs(@Param("staleBefore") LocalDateTime staleBefore, @Param("maxAttempts") int maxAttempts, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE TranscodeJob job
+            SET job.status = com.streamify.ffmpeg.TranscodeStatus.QUEUED,
+                job.lastError = :error,
+                job.nextAttemptAt = :now
+            WHERE job.status = com.streamify.ffmpeg.TranscodeStatus.RUNNING
+            AND job.startedAt < :staleBefore
+            AND job.attempts < :maxAttempts
+            """)
+    int requeueStaleJobs(@Param("staleBefore") LocalDateTime staleBefore, @Param("maxAttempts") int maxAttempts, @Param("error") String error, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE TranscodeJob job
+            SET job.progress = :progress
+            WHERE job.id = :jobId
+            AND job.status = com.streamify.ffmpeg.TranscodeStatus.RUNNING
+            """)
+    int updateProgress(@Param("jobId") String jobId, @Param("progress") int progress);
+
+    @Query("""
+            SELECT job
+            FROM TranscodeJob job
+            WHERE job.targetId = :targetId
+            ORDER BY job.createdAt DESC
+            """)
+    List<TranscodeJob> findAllByTargetId(@Param("targetId") String targetId);
+
+    long countByStatus(TranscodeStatus status);
+}
@@ -0,0 +1,24 @@
+package com.streamify.ffmpeg;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+public class TranscodeJobResponse {
+    private String id;
+    private TranscodeTarget target;
+    private String targetId;
+    private TranscodeStatus status;
+    private int attempts;
+    private int progress;
+    private String outputUrl;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,226 @@
+package com.streamify.ffmpeg;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+@Service
+public class TranscodeService {
+    private final Logger LOGGER = LoggerFactory.getLogger(TranscodeService.class);
+
+    private final TranscodeJobRepository transcodeJobRepository;
+    private final FfmpegService ffmpegService;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger runningJobs = new AtomicInteger();
+    private ExecutorService workers;
+
+    @Value("${application.transcode.workers:0}")
+    private int workerCount;
+
+    @Value("${application.transcode.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${application.transcode.retry-backoff-seconds:30}")
+    private long retryBackoffSeconds;
+
+    @Value("${application.transcode.stale-after-minutes:30}")
+    private long staleAfterMinutes;
+
+    public TranscodeService(TranscodeJobRepository transcodeJobRepository, FfmpegService ffmpegService, MeterRegistry meterRegistry) {
+        this.transcodeJobRepository = transcodeJobRepository;
+        this.ffmpegService = ffmpegService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        // 0 means half of the cores, every ffmpeg process is multi-threaded on its own
+        if (workerCount <= 0) {
+            workerCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        }
+        AtomicInteger threadIdx = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "transcode-worker-" + threadIdx.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the queue depth is read from the database on scrape, so it covers jobs queued by every node
+        Gauge.builder("streamify.transcode.queue.depth", () -> transcodeJobRepository.countByStatus(TranscodeStatus.QUEUED))
+                .description("Transcode jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("streamify.transcode.running", runningJobs, AtomicInteger::get)
+                .description("Transcode jobs running on this node")
+                .register(meterRegistry);
+        Gauge.builder("streamify.transcode.workers", () -> workerCount)
+                .description("Transcode worker pool size on this node")
+                .register(meterRegistry);
+        LOGGER.info("Transcode scheduler started with {} workers", workerCount);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    public TranscodeJob enqueuePostVideo(String sourceKey, String postId, String userId, String contentHash) {
+        return enqueue(TranscodeTarget.POST, sourceKey, postId, userId, contentHash);
+    }
+
+    public TranscodeJob enqueueStoryVideo(String sourceKey, String storyId, String userId, String contentHash) {
+        return enqueue(TranscodeTarget.STORY, sourceKey, storyId, userId, contentHash);
+    }
+
+    private TranscodeJob enqueue(TranscodeTarget target, String sourceKey, String targetId, String userId, String contentHash) {
+        TranscodeJob job = TranscodeJob.builder()
+                .target(target)
+                .targetId(targetId)
+                .userId(userId)
+                .sourceUrl(sourceKey)
+                .contentHash(contentHash)
+                .status(TranscodeStatus.QUEUED)
+                .priority(target.getPriority())
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+        TranscodeJob savedJob = transcodeJobRepository.save(job);
+        LOGGER.info("Transcode job {} queued for {} {}", savedJob.getId(), target.getName(), targetId);
+        return savedJob;
+    }
+
+    @Scheduled(fixedDelayString = "${application.transcode.poll-interval-ms:2000}")
+    public void dispatchQueuedJobs() {
+        int freeWorkers = workerCount - runningJobs.get();
+        if (freeWorkers <= 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<TranscodeJob> jobs = transcodeJobRepository.findRunnableJobs(now, PageRequest.of(0, freeWorkers));
+        for (TranscodeJob job : jobs) {
+            // another node may have claimed the job in the meantime
+            if (transcodeJobRepository.claimJob(job.getId(), now) == 0) {
+                continue;
+            }
+            TranscodeJob claimedJob = transcodeJobRepository.findById(job.getId())
+                    .orElseThrow(() ->
+                            new EntityNotFoundException("Transcode job is not found with ID: " + job.getId())
+                    );
+            runningJobs.incrementAndGet();
+            workers.execute(() -> runJob(claimedJob));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.transcode.stale-check-interval-ms:60000}")
+    public void requeueStaleJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusMinutes(staleAfterMinutes);
+        String error = "Worker stopped responding after " + staleAfterMinutes + " minutes";
+        int failed = transcodeJobRepository.failStaleJobs(staleBefore, maxAttempts, error, now);
+        if (failed > 0) {
+            LOGGER.error("Failed {} stale transcode jobs that ran out of attempts", failed);
+        }
+        int requeued = transcodeJobRepository.requeueStaleJobs(staleBefore, maxAttempts, error, now);
+        if (requeued > 0) {
+            LOGGER.warn("Requeued {} stale transcode jobs", requeued);
+        }
+    }
+
+    private void runJob(TranscodeJob job) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            // progress is written straight to the row, so status polls see it while the job runs
+            IntConsumer progressListener = progress -> {
+                job.setProgress(progress);
+                transcodeJobRepository.updateProgress(job.getId(), progress);
+            };
+            // posts and stories are transcoded alike, the output is attached to every holder of the blob
+            String outputUrl = ffmpegService.processVideoBlob(job.getContentHash(), progressListener);
+            job.setOutputUrl(outputUrl);
+            job.setProgress(100);
+            job.setStatus(TranscodeStatus.DONE);
+            job.setLastError(null);
+            job.setFinishedAt(LocalDateTime.now());
+            LOGGER.info("Transcode job {} is done", job.getId());
+        } catch (Exception exception) {
+            handleFailure(job, exception);
+        } finally {
+            // the worker slot is given back even when the final save fails, otherwise the node stops dispatching
+            try {
+                sample.stop(Timer.builder("streamify.transcode.duration")
+                        .description("Wall time of one transcode attempt")
+                        .tags("target", job.getTarget().getName(), "status", job.getStatus().name())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+                transcodeJobRepository.save(job);
+            } finally {
+                runningJobs.decrementAndGet();
+            }
+        }
+    }
+
+    private void handleFailure(TranscodeJob job, Exception exception) {
+        String error = exception.getMessage() == null ? exception.getClass().getSimpleName() : exception.getMessage();
+        job.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+        if (job.getAttempts() >= maxAttempts) {
+            job.setStatus(TranscodeStatus.FAILED);
+            job.setFinishedAt(LocalDateTime.now());
+            LOGGER.error("Transcode job {} failed after {} attempts @error: {}", job.getId(), job.getAttempts(), error);
+            return;
+        }
+        // exponential backoff: base, 2 * base, 4 * base, ...
+        long backoffSeconds = retryBackoffSeconds * (1L << (job.getAttempts() - 1));
+        job.setStatus(TranscodeStatus.QUEUED);
+        job.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoffSeconds));
+        LOGGER.warn("Transcode job {} failed on attempt {}, retrying in {}s @error: {}", job.getId(), job.getAttempts(), backoffSeconds, error);
+    }
+
+    public TranscodeJobResponse findJobById(String jobId) {
+        return transcodeJobRepository.findById(jobId)
+                .map(this::toTranscodeJobResponse)
+                .orElseThrow(() ->
+                        new EntityNotFoundException("Transcode job is not found with ID: " + jobId)
+                );
+    }
+
+    public List<TranscodeJobResponse> findJobsByTargetId(String targetId) {
+        return transcodeJobRepository.findAllByTargetId(targetId)
+                .stream()
+                .map(this::toTranscodeJobResponse)
+                .toList();
+    }
+
+    private TranscodeJobResponse toTranscodeJobResponse(TranscodeJob job) {
+        return TranscodeJobResponse.builder()
+                .id(job.getId())
+                .target(job.getTarget())
+                .targetId(job.getTargetId())
+                .status(job.getStatus())
+                .attempts(job.getAttempts())
+                .progress(job.getProgress())
+                .outputUrl(job.getOutputUrl())
+                .lastError(job.getLastError())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.streamify.ffmpeg;
+
+import lombok.Getter;
+
+@Getter
+public enum TranscodeStatus {
+    QUEUED("queued"),
+    RUNNING("running"),
+    DONE("done"),
+    FAILED("failed")
+    ;
+
+    private final String name;
+
+    TranscodeStatus(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,19 @@
+package com.streamify.ffmpeg;
+
+import lombok.Getter;
+
+@Getter
+public enum TranscodeTarget {
+    // stories expire after 12h, so they are transcoded ahead of posts
+    STORY("story", 10),
+    POST("post", 0)
+    ;
+
+    private final String name;
+    private final int priority;
+
+    TranscodeTarget(String name, int priority) {
+        this.name = name;
+        this.priority = priority;
+    }
+}
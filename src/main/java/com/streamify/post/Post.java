@@ -2,9 +2,13 @@ package com.streamify.post;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.streamify.comment.Comment;
+import com.streamify.common.UuidV7;
 import com.streamify.user.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -20,11 +24,17 @@ import java.util.Set;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "posts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "posts")
+@DynamicUpdate
+@Table(
+        name = "posts",
+        indexes = @Index(name = "idx_posts_user_created", columnList = "user_id, created_at DESC, id DESC")
+)
 @EntityListeners(AuditingEntityListener.class)
 public class Post {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private String id;
 
     @Column(length = 2200)
@@ -46,9 +56,11 @@ public class Post {
     private String location;
     private boolean isReel;
 
-    // todo -> likes impl
+    // only ever changed with an in-place UPDATE, see PostRepository.updateLikes
+    private int likes;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "post-collaborator-ids")
     @JoinTable(
             name = "post_collaborators",
             joinColumns = @JoinColumn(name = "post_id"),
@@ -67,6 +79,7 @@ public class Post {
     @OneToMany(mappedBy = "post", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Comment> comments;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "post-media-ids")
     @OneToMany(mappedBy = "post", fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true) // todo -> make it LAZY
     private List<PostMedia> postMedia;
 }
@@ -0,0 +1,4 @@
+package com.streamify.post;
+
+public record PostCollaboratorRow(String postId, String username) {
+}
@@ -2,6 +2,8 @@ package com.streamify.post;
 
 import com.streamify.comment.CommentResponse;
 import com.streamify.comment.CommentService;
+import com.streamify.comment.CommentThreadResponse;
+import com.streamify.common.CursorPageResponse;
 import com.streamify.common.PageResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -13,6 +15,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("posts")
@@ -98,11 +102,33 @@ public class PostController {
 
     @PatchMapping("/{post-id}/like")
     public ResponseEntity<String> likePost(
-            @PathVariable("post-id") String postId
+            @PathVariable("post-id") String postId,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(postService.likePost(postId, connectedUser));
+    }
+
+    @PatchMapping("/{post-id}/unlike")
+    public ResponseEntity<String> unlikePost(
+            @PathVariable("post-id") String postId,
+            Authentication connectedUser
     ) {
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(postService.likePost(postId));
+                .body(postService.unlikePost(postId, connectedUser));
+    }
+
+    // which of the given posts the connected user liked, one query for a whole screen of posts
+    @GetMapping("/liked")
+    public ResponseEntity<Set<String>> findLikedPostIds(
+            @RequestParam("post-ids") List<String> postIds,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(postService.findLikedPostIds(postIds, connectedUser));
     }
 
     @PostMapping("/{post-id}/comment")
@@ -192,4 +218,38 @@ public class PostController {
                 .status(HttpStatus.OK)
                 .body(commentService.getAllCommentReplies(commentId, page, size));
     }
+
+    @GetMapping("/{post-id}/comments/cursor")
+    public ResponseEntity<CursorPageResponse<CommentResponse>> getPostCommentsAfterCursor(
+            @PathVariable("post-id") String postId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(commentService.getPostCommentsAfterCursor(postId, cursor, size));
+    }
+
+    @GetMapping("/{post-id}/comments/threads")
+    public ResponseEntity<CursorPageResponse<CommentThreadResponse>> getPostCommentThreads(
+            @PathVariable("post-id") String postId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            @RequestParam(name = "replies", defaultValue = "2", required = false) int replies
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(commentService.getPostCommentThreads(postId, cursor, size, replies));
+    }
+
+    @GetMapping("/{comment-id}/replies/cursor")
+    public ResponseEntity<CursorPageResponse<CommentResponse>> getCommentRepliesAfterCursor(
+            @PathVariable("comment-id") String commentId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(commentService.getCommentRepliesAfterCursor(commentId, cursor, size));
+    }
 }
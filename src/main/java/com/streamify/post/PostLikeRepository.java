@@ -0,0 +1,43 @@
+package com.streamify.post;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PostLikeRepository extends JpaRepository<PostLike, String> {
+    // returns 0 when the like already exists, so a double tap never counts twice,
+    // the query space keeps hibernate from clearing the whole second level cache after a native write
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "post_likes"))
+    @Query(value = """
+            INSERT INTO post_likes (id, post_id, user_id, created_at)
+            VALUES (gen_random_uuid()::text, :postId, :userId, CURRENT_TIMESTAMP)
+            ON CONFLICT (post_id, user_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertLike(@Param("postId") String postId, @Param("userId") String userId);
+
+    @Modifying
+    @Query("""
+            DELETE FROM PostLike postLike
+            WHERE postLike.post.id = :postId
+            AND postLike.user.id = :userId
+            """)
+    int deleteLike(@Param("postId") String postId, @Param("userId") String userId);
+
+    @Query("""
+            SELECT postLike.post.id
+            FROM PostLike postLike
+            WHERE postLike.user.id = :userId
+            AND postLike.post.id IN :postIds
+            """)
+    List<String> findLikedPostIds(@Param("userId") String userId, @Param("postIds") Collection<String> postIds);
+}
@@ -3,6 +3,9 @@ package com.streamify.post;
 import com.streamify.user.User;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,8 +27,62 @@ public class PostMapper {
                                 .collect(Collectors.toSet())
                 )
                 .hideLikesAndViewCounts(post.isHideLikesAndViewCounts())
+                .likes(post.getLikes())
                 .allowComments(post.isAllowComments())
-                .postMedia(post.getPostMedia())
+                .postMedia(
+                        post
+                                .getPostMedia()
+                                .stream()
+                                .map(this::toPostMediaResponse)
+                                .toList()
+                )
+                .build();
+    }
+
+    public PostResponse toPostResponse(PostRow post, List<PostMediaRow> postMedia, List<PostCollaboratorRow> collaborators) {
+        return PostResponse.builder()
+                .id(post.id())
+                .caption(post.caption())
+                .createdAt(post.createdAt())
+                .visibility(post.visibility())
+                .isArchived(post.isArchived())
+                .location(post.location())
+                .isReel(post.isReel())
+                .collaborators(
+                        collaborators
+                                .stream()
+                                .map(PostCollaboratorRow::username)
+                                .collect(Collectors.toCollection(LinkedHashSet::new))
+                )
+                .hideLikesAndViewCounts(post.hideLikesAndViewCounts())
+                .likes(post.likes())
+                .allowComments(post.allowComments())
+                .postMedia(
+                        postMedia
+                                .stream()
+                                .map(this::toPostMediaResponse)
+                                .toList()
+                )
+                .build();
+    }
+
+    public PostMediaResponse toPostMediaResponse(PostMedia postMedia) {
+        return PostMediaResponse.builder()
+                .id(postMedia.getId())
+                .mediaUrl(postMedia.getMediaUrl())
+                .type(postMedia.getType())
+                .altText(postMedia.getAltText())
+                .metadata(postMedia.getMetadata())
+                .build();
+    }
+
+    public PostMediaResponse toPostMediaResponse(PostMediaRow postMedia) {
+        return PostMediaResponse.builder()
+                .id(postMedia.id())
+                .mediaUrl(postMedia.mediaUrl())
+                .type(postMedia.type())
+                .altText(postMedia.altText())
+                .metadata(postMedia.metadata())
                 .build();
     }
 }
@@ -1,8 +1,12 @@
 package com.streamify.post;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.streamify.common.UuidV7;
+import com.streamify.ffmpeg.MediaMetadata;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @Setter
@@ -11,11 +15,16 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "post_media")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "post-media")
+@Table(
+        name = "post_media",
+        indexes = @Index(name = "idx_post_media_content_hash", columnList = "content_hash")
+)
 @EntityListeners(AuditingEntityListener.class)
 public class PostMedia {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private String id;
 
     @JsonIgnore
@@ -26,4 +35,10 @@ public class PostMedia {
     private String mediaUrl;
     private String type;
     private String altText;
+    // sha-256 of the uploaded bytes, the media_blobs row holding the file
+    @Column(length = 64)
+    private String contentHash;
+
+    @Embedded
+    private MediaMetadata metadata;
 }
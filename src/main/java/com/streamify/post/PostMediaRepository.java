@@ -1,8 +1,46 @@
 package com.streamify.post;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface PostMediaRepository extends JpaRepository<PostMedia, String> {
+    // native with the media_blobs space, so a finished transcode does not drop the whole post-media region,
+    // the caller evicts the rows findIdsByContentHash returns
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "media_blobs"))
+    @Query(value = """
+            UPDATE post_media
+            SET media_url = :mediaUrl
+            WHERE content_hash = :contentHash
+            """, nativeQuery = true)
+    int updateMediaUrlByContentHash(@Param("contentHash") String contentHash, @Param("mediaUrl") String mediaUrl);
+
+    @Query("""
+            SELECT new com.streamify.post.PostMediaRow(
+                media.post.id, media.id, media.mediaUrl, media.type, media.altText, media.metadata
+            )
+            FROM PostMedia media
+            WHERE media.post.id IN :postIds
+            ORDER BY media.id
+            """)
+    List<PostMediaRow> findMediaRowsByPostIdIn(@Param("postIds") Collection<String> postIds);
+
+    @Query("""
+            SELECT media.id
+            FROM PostMedia media
+            WHERE media.contentHash = :contentHash
+            """)
+    List<String> findIdsByContentHash(@Param("contentHash") String contentHash);
 }
@@ -0,0 +1,17 @@
+package com.streamify.post;
+
+import com.streamify.ffmpeg.MediaMetadata;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PostMediaResponse {
+    private String id;
+    private String mediaUrl;
+    private String type;
+    private String altText;
+    private MediaMetadata metadata;
+}
@@ -0,0 +1,13 @@
+package com.streamify.post;
+
+import com.streamify.ffmpeg.MediaMetadata;
+
+public record PostMediaRow(
+        String postId,
+        String id,
+        String mediaUrl,
+        String type,
+        String altText,
+        MediaMetadata metadata
+) {
+}
@@ -0,0 +1,41 @@
+package com.streamify.post;
+
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// a page of posts costs three queries whatever its size: the rows, their media and their collaborators
+@Service
+public class PostPageAssembler {
+    private final PostRepository postRepository;
+    private final PostMediaRepository postMediaRepository;
+    private final PostMapper postMapper;
+
+    public PostPageAssembler(PostRepository postRepository, PostMediaRepository postMediaRepository, PostMapper postMapper) {
+        this.postRepository = postRepository;
+        this.postMediaRepository = postMediaRepository;
+        this.postMapper = postMapper;
+    }
+
+    public List<PostResponse> toPostResponses(List<PostRow> posts) {
+        if (posts.isEmpty()) {
+            return List.of();
+        }
+        List<String> postIds = posts.stream().map(PostRow::id).toList();
+        Map<String, List<PostMediaRow>> mediaByPost = postMediaRepository.findMediaRowsByPostIdIn(postIds)
+                .stream()
+                .collect(Collectors.groupingBy(PostMediaRow::postId));
+        Map<String, List<PostCollaboratorRow>> collaboratorsByPost = postRepository.findCollaboratorsByPostIdIn(postIds)
+                .stream()
+                .collect(Collectors.groupingBy(PostCollaboratorRow::postId));
+        return posts.stream()
+                .map(post -> postMapper.toPostResponse(
+                        post,
+                        mediaByPost.getOrDefault(post.id(), List.of()),
+                        collaboratorsByPost.getOrDefault(post.id(), List.of())
+                ))
+                .toList();
+    }
+}
@@ -1,46 +1,195 @@
 package com.streamify.post;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, String> {
+    // profile grids are read far more often than they change, hibernate drops the cached pages on any write to posts,
+    // visibility is a literal and not a parameter so the planner can match the partial indexes of V2 on a generic plan
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "displayable-posts")
+    })
     @Query("""
-        SELECT post
-        FROM Post post
-        WHERE post.user.id = :userId
-        AND post.isArchived = false
-        AND post.visibility = :visibility
-        """)
-    Page<Post> findAllDisplayablePosts(Pageable pageable, @Param("userId") String userId, @Param("visibility") PostVisibility visibility);
+            SELECT new com.streamify.post.PostRow(
+                post.id, post.caption, post.createdAt, post.visibility, post.isArchived, post.location,
+                post.isReel, post.hideLikesAndViewCounts, post.likes, post.allowComments
+            )
+            FROM Post post
+            WHERE post.user.id = :userId
+            AND post.isArchived = false
+            AND post.visibility = com.streamify.post.PostVisibility.PUBLIC
+            """)
+    Page<PostRow> findAllDisplayablePosts(Pageable pageable, @Param("userId") String userId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "displayable-posts")
+    })
+    @Query("""
+            SELECT new com.streamify.post.PostRow(
+                post.id, post.caption, post.createdAt, post.visibility, post.isArchived, post.location,
+                post.isReel, post.hideLikesAndViewCounts, post.likes, post.allowComments
+            )
+            FROM Post post
+            WHERE post.user.id = :userId
+            AND post.isReel = true
+            AND post.isArchived = false
+            AND post.visibility = com.streamify.post.PostVisibility.PUBLIC
+            """)
+    Page<PostRow> findAllDisplayableReels(Pageable pageable, @Param("userId") String userId);
+
+    @Query("""
+            SELECT new com.streamify.post.PostRow(
+                post.id, post.caption, post.createdAt, post.visibility, post.isArchived, post.location,
+                post.isReel, post.hideLikesAndViewCounts, post.likes, post.allowComments
+            )
+            FROM Post post
+            WHERE post.user.id = :userId
+            """)
+    Page<PostRow> findAllMyPosts(Pageable pageable, @Param("userId") String userId);
+
+    @Query("""
+            SELECT new com.streamify.post.PostRow(
+                post.id, post.caption, post.createdAt, post.visibility, post.isArchived, post.location,
+                post.isReel, post.hideLikesAndViewCounts, post.likes, post.allowComments
+            )
+            FROM Post post
+            WHERE post.id IN (
+                SELECT saved.id
+                FROM User user
+                JOIN user.savedPost saved
+                WHERE user.id = :userId
+            )
+            """)
+    Page<PostRow> findAllMySavedPosts(Pageable pageable, @Param("userId") String userId);
+
+    @Query("""
+            SELECT new com.streamify.post.PostRow(
+                post.id, post.caption, post.createdAt, post.visibility, post.isArchived, post.location,
+                post.isReel, post.hideLikesAndViewCounts, post.likes, post.allowComments
+            )
+            FROM Post post
+            WHERE post.user.id IN :authorIds
+            AND post.isArchived = false
+            AND post.visibility = com.streamify.post.PostVisibility.PUBLIC
+            AND (post.createdAt < :createdAt
+                OR (post.createdAt = :createdAt AND post.id < :postId))
+            ORDER BY post.createdAt DESC, post.id DESC
+            """)
+    List<PostRow> findDisplayablePostsByAuthors(
+            @Param("authorIds") List<String> authorIds,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("postId") String postId,
+            Pageable pageable
+    );
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "displayable-posts")
+    })
+    @Query("""
+            SELECT new com.streamify.post.PostRow(
+                post.id, post.caption, post.createdAt, post.visibility, post.isArchived, post.location,
+                post.isReel, post.hideLikesAndViewCounts, post.likes, post.allowComments
+            )
+            FROM Post post
+            WHERE post.user.id = :userId
+            AND post.isArchived = false
+            AND post.visibility = com.streamify.post.PostVisibility.PUBLIC
+            AND (post.createdAt < :createdAt
+                OR (post.createdAt = :createdAt AND post.id < :postId))
+            ORDER BY post.createdAt DESC, post.id DESC
+            """)
+    List<PostRow> findAllDisplayablePostsBefore(
+            @Param("userId") String userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("postId") String postId,
+            Pageable pageable
+    );
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "displayable-posts")
+    })
     @Query("""
-            SELECT post
+            SELECT new com.streamify.post.PostRow(
+                post.id, post.caption, post.createdAt, post.visibility, post.isArchived, post.location,
+                post.isReel, post.hideLikesAndViewCounts, post.likes, post.allowComments
+            )
             FROM Post post
             WHERE post.user.id = :userId
             AND post.isReel = true
             AND post.isArchived = false
-            AND post.visibility = :visibility
+            AND post.visibility = com.streamify.post.PostVisibility.PUBLIC
+            AND (post.createdAt < :createdAt
+                OR (post.createdAt = :createdAt AND post.id < :postId))
+            ORDER BY post.createdAt DESC, post.id DESC
             """)
-    Page<Post> findAllDisplayableReels(Pageable pageable, @Param("userId") String userId, @Param("visibility") PostVisibility visibility);
+    List<PostRow> findAllDisplayableReelsBefore(
+            @Param("userId") String userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("postId") String postId,
+            Pageable pageable
+    );
 
     @Query("""
-            SELECT post
+            SELECT new com.streamify.post.PostRow(
+                post.id, post.caption, post.createdAt, post.visibility, post.isArchived, post.location,
+                post.isReel, post.hideLikesAndViewCounts, post.likes, post.allowComments
+            )
             FROM Post post
             WHERE post.user.id = :userId
+            AND (post.createdAt < :createdAt
+                OR (post.createdAt = :createdAt AND post.id < :postId))
+            ORDER BY post.createdAt DESC, post.id DESC
+            """)
+    List<PostRow> findAllMyPostsBefore(
+            @Param("userId") String userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("postId") String postId,
+            Pageable pageable
+    );
+
+    // native with the post_likes space, so a like does not drop the posts region and every cached page,
+    // the caller evicts the one post and cached pages catch up within the short ttl of displayable-posts
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "post_likes"))
+    @Query(value = """
+            UPDATE posts
+            SET likes = likes + :delta
+            WHERE id = :postId
+            """, nativeQuery = true)
+    int updateLikes(@Param("postId") String postId, @Param("delta") int delta);
+
+    @Query("""
+            SELECT new com.streamify.post.PostRow(
+                post.id, post.caption, post.createdAt, post.visibility, post.isArchived, post.location,
+                post.isReel, post.hideLikesAndViewCounts, post.likes, post.allowComments
+            )
+            FROM Post post
+            WHERE post.id IN :postIds
             """)
-    Page<Post> findAllMyPosts(Pageable pageable, @Param("userId") String userId);
+    List<PostRow> findPostRowsByIdIn(@Param("postIds") Collection<String> postIds);
 
     @Query("""
-            SELECT post
+            SELECT new com.streamify.post.PostCollaboratorRow(post.id, collaborator.username)
             FROM Post post
-            WHERE post.id IN :savedPostIds
+            JOIN post.collaborators collaborator
+            WHERE post.id IN :postIds
             """)
-    Page<Post> findAllMySavedPosts(Pageable pageable, @Param("savedPostIds") List<String> savedPostIds);
+    List<PostCollaboratorRow> findCollaboratorsByPostIdIn(@Param("postIds") Collection<String> postIds);
 }
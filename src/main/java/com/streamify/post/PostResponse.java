@@ -1,7 +1,5 @@
 package com.streamify.post;
 
-import com.streamify.comment.Comment;
-import com.streamify.user.User;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -23,6 +21,8 @@ public class PostResponse {
     private boolean isReel;
     private Set<String> collaborators;
     private boolean hideLikesAndViewCounts;
+    private int likes;
+    private boolean likedByMe;
     private boolean allowComments;
-    private List<PostMedia> postMedia;
+    private List<PostMediaResponse> postMedia;
 }
@@ -0,0 +1,18 @@
+package com.streamify.post;
+
+import java.time.LocalDateTime;
+
+// the columns a post list needs, media and collaborators are fetched for the whole page in one query each
+public record PostRow(
+        String id,
+        String caption,
+        LocalDateTime createdAt,
+        PostVisibility visibility,
+        boolean isArchived,
+        String location,
+        boolean isReel,
+        boolean hideLikesAndViewCounts,
+        int likes,
+        boolean allowComments
+) {
+}
@@ -2,9 +2,13 @@ package com.streamify.post;
 
 import com.streamify.Storage.MediaService;
 import com.streamify.Storage.MediaServiceImpl;
+import com.streamify.Storage.StoredMedia;
 import com.streamify.comment.CommentRepository;
+import com.streamify.common.CacheEvictor;
+import com.streamify.common.CursorPageResponse;
+import com.streamify.common.PageCursor;
 import com.streamify.common.PageResponse;
-import com.streamify.ffmpeg.FfmpegService;
+import com.streamify.feed.FeedService;
 import com.streamify.user.User;
 import com.streamify.user.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -20,10 +24,10 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
-import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -33,25 +37,38 @@ public class PostService {
     private final MediaService mediaService;
     private final PostMediaRepository postMediaRepository;
     private final PostMapper postMapper;
+    private final PostPageAssembler postPageAssembler;
     private final UserRepository userRepository;
     private final CommentRepository commentRepository;
-    private final FfmpegService ffmpegService;
+    private final FeedService feedService;
+    private final PostLikeRepository postLikeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheEvictor cacheEvictor;
 
     public PostService(
             PostRepository postRepository,
             MediaServiceImpl mediaService,
             PostMediaRepository postMediaRepository,
             PostMapper postMapper,
+            PostPageAssembler postPageAssembler,
             UserRepository userRepository,
-            CommentRepository commentRepository, FfmpegService ffmpegService
+            CommentRepository commentRepository,
+            FeedService feedService,
+            PostLikeRepository postLikeRepository,
+            TransactionTemplate transactionTemplate,
+            CacheEvictor cacheEvictor
     ) {
         this.postRepository = postRepository;
         this.mediaService = mediaService;
         this.postMediaRepository = postMediaRepository;
         this.postMapper = postMapper;
+        this.postPageAssembler = postPageAssembler;
         this.userRepository = userRepository;
         this.commentRepository = commentRepository;
-        this.ffmpegService = ffmpegService;
+        this.feedService = feedService;
+        this.postLikeRepository = postLikeRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheEvictor = cacheEvictor;
     }
 
     private Post findPostById(@NonNull String postId) {
@@ -95,10 +112,8 @@ public class PostService {
     public PageResponse<PostResponse> getAllPostsByUserId(int page, int size, String userId) {
         User user = findUserById(userId);
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Post> posts = postRepository.findAllDisplayablePosts(pageable, user.getId(), PostVisibility.PUBLIC);
-        List<PostResponse> postResponses = posts.stream()
-                .map(postMapper::toPostResponse)
-                .toList();
+        Page<PostRow> posts = postRepository.findAllDisplayablePosts(pageable, user.getId());
+        List<PostResponse> postResponses = postPageAssembler.toPostResponses(posts.getContent());
         return PageResponse.<PostResponse>builder()
                 .content(postResponses)
                 .number(posts.getNumber())
@@ -113,10 +128,8 @@ public class PostService {
     public PageResponse<PostResponse> getAllReelsByUserId(int page, int size, String userId) {
         User user = findUserById(userId);
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Post> posts = postRepository.findAllDisplayableReels(pageable, user.getId(), PostVisibility.PUBLIC);
-        List<PostResponse> postResponses = posts.stream()
-                .map(postMapper::toPostResponse)
-                .toList();
+        Page<PostRow> posts = postRepository.findAllDisplayableReels(pageable, user.getId());
+        List<PostResponse> postResponses = postPageAssembler.toPostResponses(posts.getContent());
         return PageResponse.<PostResponse>builder()
                 .content(postResponses)
                 .number(posts.getNumber())
@@ -130,15 +143,9 @@ public class PostService {
 
     public PageResponse<PostResponse> getAllSavedPostsByUser(int page, int size, String userId) {
         User user = findUserById(userId);
-        List<String> savedPostIds = user.getSavedPost()
-                .stream()
-                .map(Post::getId)
-                .toList();
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Post> posts = postRepository.findAllMySavedPosts(pageable, savedPostIds);
-        List<PostResponse> postResponses = posts.stream()
-                .map(postMapper::toPostResponse)
-                .toList();
+        Page<PostRow> posts = postRepository.findAllMySavedPosts(pageable, user.getId());
+        List<PostResponse> postResponses = postPageAssembler.toPostResponses(posts.getContent());
         return PageResponse.<PostResponse>builder()
                 .content(postResponses)
                 .number(posts.getNumber())
@@ -153,10 +160,8 @@ public class PostService {
     public PageResponse<PostResponse> getAllMyPost(int page, int size, Authentication connectedUser) {
         User user = (User) connectedUser.getPrincipal();
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Post> posts = postRepository.findAllMyPosts(pageable, user.getId());
-        List<PostResponse> postResponses = posts.stream()
-                .map(postMapper::toPostResponse)
-                .toList();
+        Page<PostRow> posts = postRepository.findAllMyPosts(pageable, user.getId());
+        List<PostResponse> postResponses = postPageAssembler.toPostResponses(posts.getContent());
         return PageResponse.<PostResponse>builder()
                 .content(postResponses)
                 .number(posts.getNumber())
@@ -168,6 +173,33 @@ public class PostService {
                 .build();
     }
 
+    public CursorPageResponse<PostResponse> getPostsByUserIdAfterCursor(String cursor, int size, String userId) {
+        User user = findUserById(userId);
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        List<PostRow> posts = postRepository.findAllDisplayablePostsBefore(
+                user.getId(), pageCursor.createdAt(), pageCursor.id(), PageRequest.of(0, size + 1)
+        );
+        return CursorPageResponse.ofPage(posts, size, post -> new PageCursor(post.createdAt(), post.id()), postPageAssembler::toPostResponses);
+    }
+
+    public CursorPageResponse<PostResponse> getReelsByUserIdAfterCursor(String cursor, int size, String userId) {
+        User user = findUserById(userId);
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        List<PostRow> posts = postRepository.findAllDisplayableReelsBefore(
+                user.getId(), pageCursor.createdAt(), pageCursor.id(), PageRequest.of(0, size + 1)
+        );
+        return CursorPageResponse.ofPage(posts, size, post -> new PageCursor(post.createdAt(), post.id()), postPageAssembler::toPostResponses);
+    }
+
+    public CursorPageResponse<PostResponse> getMyPostsAfterCursor(String cursor, int size, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        List<PostRow> posts = postRepository.findAllMyPostsBefore(
+                user.getId(), pageCursor.createdAt(), pageCursor.id(), PageRequest.of(0, size + 1)
+        );
+        return CursorPageResponse.ofPage(posts, size, post -> new PageCursor(post.createdAt(), post.id()), postPageAssembler::toPostResponses);
+    }
+
     public Boolean deletePostById(String postId, Authentication connectedUser) throws IOException {
         User user = (User) connectedUser.getPrincipal();
         Post post = findPostById(postId);
@@ -182,11 +214,39 @@ public class PostService {
             throw new IllegalStateException("Post deletion failed!");
         }
         postRepository.deleteById(post.getId());
+        feedService.removePost(post.getId());
         return true;
     }
 
-    public String likePost(String postId) {
-        return null;
+    @Transactional
+    public String likePost(String postId, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        Post post = findPostById(postId);
+        // the counter only moves when the edge was actually inserted, so liking twice is a no-op
+        if (postLikeRepository.insertLike(post.getId(), user.getId()) == 1) {
+            postRepository.updateLikes(post.getId(), 1);
+            cacheEvictor.evict(Post.class, post.getId());
+        }
+        return post.getId();
+    }
+
+    @Transactional
+    public String unlikePost(String postId, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        Post post = findPostById(postId);
+        if (postLikeRepository.deleteLike(post.getId(), user.getId()) == 1) {
+            postRepository.updateLikes(post.getId(), -1);
+            cacheEvictor.evict(Post.class, post.getId());
+        }
+        return post.getId();
+    }
+
+    public Set<String> findLikedPostIds(List<String> postIds, Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        if (postIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(postLikeRepository.findLikedPostIds(user.getId(), postIds));
     }
 
     public String uploadPostContent(Authentication connectedUser, MultipartFile... contents) throws IOException {
@@ -201,27 +261,61 @@ public class PostService {
         Post savedPost = postRepository.save(post);
 
         List<PostMedia> postMediaList = new ArrayList<>();
-        for (MultipartFile content : contents) {
-            if (content.getContentType().startsWith("image/") || content.getContentType().startsWith("video/")) {
-                String storedUrl = mediaService.uploadPostContent(content, user.getId(), savedPost.getId());
-                PostMedia postMedia = PostMedia.builder()
-                        .post(savedPost)
-                        .mediaUrl(storedUrl)
-                        .type(content.getContentType())
-                        .altText(generateAltText(content))
-                        .build();
-                PostMedia savedPostMedia = postMediaRepository.save(postMedia);
-                postMediaList.add(savedPostMedia);
-                // check this is reel or not
-                if (contents.length == 1 && content.getContentType().startsWith("video/")) {
-                    ffmpegService.isValidReel(Paths.get(storedUrl), savedPost.getId());
+        try {
+            for (MultipartFile content : contents) {
+                if (content.getContentType().startsWith("image/") || content.getContentType().startsWith("video/")) {
+                    StoredMedia storedMedia = mediaService.uploadPostContent(content, user.getId(), savedPost.getId());
+                    PostMedia postMedia = PostMedia.builder()
+                            .post(savedPost)
+                            .mediaUrl(storedMedia.mediaUrl())
+                            .type(content.getContentType())
+                            .altText(generateAltText(content))
+                            .metadata(storedMedia.metadata())
+                            .contentHash(storedMedia.contentHash())
+                            .build();
+                    postMediaList.add(postMedia);
+                    // a single video of at most 90s is a reel, the duration was probed during the upload
+                    Double duration = storedMedia.metadata() == null ? null : storedMedia.metadata().getDurationSeconds();
+                    if (contents.length == 1 && content.getContentType().startsWith("video/") && duration != null && duration <= 90) {
+                        savedPost.setReel(true);
+                    }
+                } else {
+                    throw new IllegalArgumentException("Only image and video file types are allowed. Please upload a valid image or video.");
                 }
-            } else {
-                throw new IllegalArgumentException("Only image and video file types are allowed. Please upload a valid image or video.");
             }
+            // the uploads run outside of any transaction, the rows of every file are then written as one batch
+            return transactionTemplate.execute(status -> {
+                // a video that finished transcoding while the other files were uploading is already served as HLS
+                Map<String, String> transcodedMediaUrls = mediaService.findTranscodedMediaUrls(
+                        postMediaList.stream().map(PostMedia::getContentHash).toList()
+                );
+                postMediaList.forEach(postMedia ->
+                        postMedia.setMediaUrl(transcodedMediaUrls.getOrDefault(postMedia.getContentHash(), postMedia.getMediaUrl()))
+                );
+                postMediaRepository.saveAll(postMediaList);
+                savedPost.setPostMedia(postMediaList);
+                return postRepository.save(savedPost).getId();
+            });
+        } catch (IOException | RuntimeException exception) {
+            // no row points at the blobs yet, so every reference taken so far is released and the empty draft goes too
+            discardUpload(savedPost, postMediaList, exception);
+            throw exception;
+        }
+    }
+
+    private void discardUpload(Post post, List<PostMedia> uploadedMedia, Exception cause) {
+        for (PostMedia postMedia : uploadedMedia) {
+            try {
+                mediaService.deletePostContent(List.of(postMedia));
+            } catch (IOException | RuntimeException releaseFailure) {
+                cause.addSuppressed(releaseFailure);
+            }
+        }
+        try {
+            postRepository.deleteById(post.getId());
+        } catch (RuntimeException deleteFailure) {
+            cause.addSuppressed(deleteFailure);
         }
-        savedPost.setPostMedia(postMediaList);
-        return postRepository.save(savedPost).getId();
     }
 
     private String generateAltText(MultipartFile content) {
@@ -242,8 +336,21 @@ public class PostService {
         );
         post.setHideLikesAndViewCounts(request.isHideLikesAndViewCounts());
         post.setAllowComments(request.isAllowComments());
-        postRepository.save(post);
-        return postRepository.save(post).getId();
+        Post savedPost = postRepository.save(post);
+        publishToFeeds(savedPost);
+        return savedPost.getId();
+    }
+
+    private void publishToFeeds(Post post) {
+        if (post.isArchived() || post.getVisibility() != PostVisibility.PUBLIC) {
+            return;
+        }
+        feedService.fanOutPost(
+                post.getId(),
+                post.getUser().getId(),
+                post.getUser().getFollowerCount(),
+                post.getCreatedAt()
+        );
     }
 
     @Transactional
@@ -263,6 +370,7 @@ public class PostService {
         post.setHideLikesAndViewCounts(request.isHideLikesAndViewCounts());
         post.setAllowComments(request.isAllowComments());
         Post updatedPost = postRepository.save(post);
+        publishToFeeds(updatedPost);
         return PostResponse.builder()
                 .id(updatedPost.getId())
                 .caption(updatedPost.getCaption())
@@ -277,7 +385,10 @@ public class PostService {
                 )
                 .hideLikesAndViewCounts(updatedPost.isHideLikesAndViewCounts())
                 .allowComments(updatedPost.isAllowComments())
-                .postMedia(updatedPost.getPostMedia())
+                .postMedia(updatedPost.getPostMedia().stream()
+                        .map(postMapper::toPostMediaResponse)
+                        .toList()
+                )
                 .build();
     }
 }
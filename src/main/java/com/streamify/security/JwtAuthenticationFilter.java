@@ -1,6 +1,9 @@
 package com.streamify.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,10 +24,14 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final MeterRegistry meterRegistry;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService, PrincipalCache principalCache, MeterRegistry meterRegistry) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -41,11 +48,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
         jwt = authHeader.substring(7);
+        // times only the authentication work, not the rest of the chain
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "rejected";
         try {
-            identifier = jwtService.extractIdentifier(jwt);
+            // parse and verify the token once, the claims carry both the subject and the expiry
+            Claims claims = jwtService.parseToken(jwt);
+            identifier = claims.getSubject();
             if (identifier != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(identifier);
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                UserDetails userDetails = principalCache.get(identifier, userDetailsService::loadUserByUsername);
+                if (jwtService.isTokenValid(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authenticationToken =
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     authenticationToken.setDetails(
@@ -53,10 +65,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     );
                     SecurityContextHolder.getContext()
                             .setAuthentication(authenticationToken);
+                    outcome = "authenticated";
                 }
             }
         } catch (ExpiredJwtException exception) {
             // todo -> handle exception
+            outcome = "expired";
+        } finally {
+            sample.stop(Timer.builder("streamify.auth.jwt.filter")
+                    .description("Time spent authenticating a bearer token")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
         }
         filterChain.doFilter(request, response);
     }
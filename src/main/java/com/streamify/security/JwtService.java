@@ -1,9 +1,11 @@
 package com.streamify.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,8 +15,6 @@ import java.security.Key;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Service
 public class JwtService {
@@ -24,6 +24,19 @@ public class JwtService {
     @Value("${application.Security.jwt.secret-key}")
     private String secretKey;
 
+    private Key signKey;
+    private JwtParser jwtParser;
+
+    // the key and parser are immutable and thread safe, so build them once instead of per request
+    @PostConstruct
+    void init() {
+        signKey = Keys.hmacShaKeyFor(Decoders.BASE64URL.decode(secretKey));
+        jwtParser = Jwts
+                .parserBuilder()
+                .setSigningKey(signKey)
+                .build();
+    }
+
     public String generateJwtToken(Map<String, Object> claims, UserDetails userDetails) {
         return buildJwtToken(claims, userDetails, jwtExpiration);
     }
@@ -40,44 +53,22 @@ public class JwtService {
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
                 .claim("authorities", authorities)
                 .setIssuer("Streamify.com")
-                .signWith(getSignKey())
+                .signWith(signKey)
                 .compact();
     }
 
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64URL.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
-    public boolean isTokenValid(String jwtToken, UserDetails userDetails) {
-        final String identifier = extractIdentifier(jwtToken);
-        // todo - something
-        return !isTokenExpired(jwtToken);
-    }
-
-    private boolean isTokenExpired(String jwtToken) {
-        return extractExpiration(jwtToken).before(new Date(System.currentTimeMillis()));
-    }
-
-    private Date extractExpiration(String jwtToken) {
-        return extractClaims(jwtToken, Claims::getExpiration);
-    }
-
-    private <T> T extractClaims(String jwtToken, Function<Claims, T> claimResolver) {
-        final Claims claims = extractAllClaims(jwtToken);
-        return claimResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String jwtToken) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
+    public Claims parseToken(String jwtToken) {
+        return jwtParser
                 .parseClaimsJws(jwtToken)
                 .getBody();
     }
 
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date(System.currentTimeMillis()));
+    }
+
     public String extractIdentifier(String jwtToken) {
-        return extractClaims(jwtToken, Claims::getSubject);
+        return parseToken(jwtToken).getSubject();
     }
 }
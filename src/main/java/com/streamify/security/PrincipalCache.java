@@ -0,0 +1,72 @@
+package com.streamify.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+@Component
+public class PrincipalCache {
+    private final long ttlMillis;
+    private final int maxSize;
+    private final LinkedHashMap<String, CachedPrincipal> principals;
+    private final Counter hits;
+    private final Counter misses;
+
+    public PrincipalCache(
+            @Value("${application.Security.principal-cache.ttl-seconds}") long ttlSeconds,
+            @Value("${application.Security.principal-cache.max-size}") int maxSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxSize = maxSize;
+        // access ordered, so the least recently authenticated user is dropped first
+        this.principals = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                return size() > PrincipalCache.this.maxSize;
+            }
+        };
+        this.hits = Counter.builder("streamify.auth.principal.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("streamify.auth.principal.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("streamify.auth.principal.cache.size", principals, Map::size)
+                .register(meterRegistry);
+    }
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        synchronized (principals) {
+            CachedPrincipal cached = principals.get(username);
+            if (cached != null && cached.expiresAt() > now) {
+                hits.increment();
+                return cached.userDetails();
+            }
+        }
+        misses.increment();
+        // load outside the lock, a concurrent miss for the same user only costs one extra query
+        UserDetails userDetails = loader.apply(username);
+        synchronized (principals) {
+            principals.put(username, new CachedPrincipal(userDetails, now + ttlMillis));
+        }
+        return userDetails;
+    }
+
+    public void invalidate(String username) {
+        synchronized (principals) {
+            principals.remove(username);
+        }
+    }
+
+    private record CachedPrincipal(UserDetails userDetails, long expiresAt) {
+    }
+}
@@ -40,7 +40,9 @@ public class SecurityConfig {
                                     "/configuration/security",
                                     "/swagger-ui/**",
                                     "/webjars/**",
-                                    "/swagger-ui.html"
+                                    "/swagger-ui.html",
+                                    "/actuator/health",
+                                    "/actuator/prometheus"
                     )
                             .permitAll()
                             .anyRequest()
@@ -0,0 +1,4 @@
+package com.streamify.story;
+
+public record ExpiredStory(String id, String mediaUrl, String contentHash) {
+}
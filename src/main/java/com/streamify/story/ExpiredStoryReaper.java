@@ -0,0 +1,159 @@
+package com.streamify.story;
+
+import com.streamify.Storage.MediaService;
+import com.streamify.common.CacheEvictor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class ExpiredStoryReaper {
+    private final Logger LOGGER = LoggerFactory.getLogger(ExpiredStoryReaper.class);
+
+    // a story deleted or archived since it was selected is skipped, the lock keeps it that way until the batch commits
+    private static final String LOCK_EXPIRED_STORIES = """
+            SELECT id
+            FROM stories
+            WHERE id = ANY (?)
+            AND is_archived = false
+            AND expired_at <= ?
+            FOR UPDATE
+            """;
+    // only the rows this run really deletes come back, so media is never released twice
+    private static final String DELETE_STORIES = """
+            DELETE FROM stories
+            WHERE id = ANY (?)
+            RETURNING id, media_url, content_hash
+            """;
+
+    private final StoryRepository storyRepository;
+    private final StoryViewRepository storyViewRepository;
+    private final StoryReplyRepository storyReplyRepository;
+    private final MediaService mediaService;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheEvictor cacheEvictor;
+    private final MeterRegistry meterRegistry;
+    private final Counter reapedStoriesCounter;
+    private final Counter failedMediaDeletesCounter;
+
+    @Value("${application.story.reaper.batch-size:200}")
+    private int batchSize;
+
+    @Value("${application.story.reaper.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    public ExpiredStoryReaper(
+            StoryRepository storyRepository,
+            StoryViewRepository storyViewRepository,
+            StoryReplyRepository storyReplyRepository,
+            MediaService mediaService,
+            TransactionTemplate transactionTemplate,
+            JdbcTemplate jdbcTemplate,
+            CacheEvictor cacheEvictor,
+            MeterRegistry meterRegistry
+    ) {
+        this.storyRepository = storyRepository;
+        this.storyViewRepository = storyViewRepository;
+        this.storyReplyRepository = storyReplyRepository;
+        this.mediaService = mediaService;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheEvictor = cacheEvictor;
+        this.meterRegistry = meterRegistry;
+        this.reapedStoriesCounter = Counter.builder("streamify.story.reaper.stories")
+                .description("Expired stories deleted by the reaper")
+                .register(meterRegistry);
+        this.failedMediaDeletesCounter = Counter.builder("streamify.story.reaper.media.delete.failures")
+                .description("Media files of reaped stories that could not be deleted")
+                .register(meterRegistry);
+    }
+
+    // archived stories are kept, they are the user's highlights and outlive the 12h window
+    @Scheduled(fixedDelayString = "${application.story.reaper.interval-ms:300000}")
+    public void reapExpiredStories() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long startedAt = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        int reapedStories = 0;
+        int failedMediaDeletes = 0;
+        for (int batchIdx = 0; batchIdx < maxBatchesPerRun; batchIdx++) {
+            List<ExpiredStory> expiredStories = storyRepository.findExpiredStories(now, PageRequest.of(0, batchSize));
+            if (expiredStories.isEmpty()) {
+                break;
+            }
+            List<String> storyIds = expiredStories.stream().map(ExpiredStory::id).toList();
+            // every batch commits on its own, so a long backlog never holds one big lock
+            List<ExpiredStory> deletedStories = transactionTemplate.execute(status -> {
+                List<String> lockedIds = lockExpiredStories(storyIds, now);
+                if (lockedIds.isEmpty()) {
+                    return List.of();
+                }
+                storyViewRepository.deleteAllByStoryIdIn(lockedIds);
+                storyReplyRepository.deleteAllByStoryIdIn(lockedIds);
+                List<ExpiredStory> deleted = deleteStories(lockedIds);
+                cacheEvictor.evictAll(Story.class, deleted.stream().map(ExpiredStory::id).toList());
+                return deleted;
+            });
+            // media goes only after the rows are gone, a failure here leaves an orphan file but never a broken story
+            for (ExpiredStory expiredStory : deletedStories) {
+                try {
+                    mediaService.deleteStoryContent(expiredStory.contentHash(), expiredStory.mediaUrl());
+                } catch (IOException | RuntimeException exception) {
+                    failedMediaDeletes++;
+                    failedMediaDeletesCounter.increment();
+                    LOGGER.warn("Failed to delete media of expired story {} @error: {}", expiredStory.id(), exception.getMessage());
+                }
+            }
+            reapedStories += deletedStories.size();
+            reapedStoriesCounter.increment(deletedStories.size());
+            if (expiredStories.size() < batchSize) {
+                break;
+            }
+        }
+        // empty runs are timed too, so the run rate on the dashboard matches the schedule
+        sample.stop(Timer.builder("streamify.story.reaper.run")
+                .description("Time of one expired story reaper run")
+                .register(meterRegistry));
+        if (reapedStories == 0) {
+            return;
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        LOGGER.info(
+                "Reaped {} expired stories in {} ms ({} stories/s), {} media deletes failed",
+                reapedStories, elapsedMillis, reapedStories * 1000L / elapsedMillis, failedMediaDeletes
+        );
+    }
+
+    private List<String> lockExpiredStories(List<String> storyIds, LocalDateTime now) {
+        return jdbcTemplate.query(
+                LOCK_EXPIRED_STORIES,
+                statement -> {
+                    statement.setArray(1, statement.getConnection().createArrayOf("varchar", storyIds.toArray()));
+                    statement.setTimestamp(2, Timestamp.valueOf(now));
+                },
+                (row, rowIdx) -> row.getString("id")
+        );
+    }
+
+    private List<ExpiredStory> deleteStories(List<String> storyIds) {
+        return jdbcTemplate.query(
+                DELETE_STORIES,
+                statement -> statement.setArray(1, statement.getConnection().createArrayOf("varchar", storyIds.toArray())),
+                (row, rowIdx) -> new ExpiredStory(row.getString("id"), row.getString("media_url"), row.getString("content_hash"))
+        );
+    }
+}
@@ -1,8 +1,13 @@
 package com.streamify.story;
 
+import com.streamify.common.UuidV7;
+import com.streamify.ffmpeg.MediaMetadata;
 import com.streamify.user.User;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -17,21 +22,38 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "stories")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "stories")
+@DynamicUpdate
+@Table(
+        name = "stories",
+        indexes = {
+                @Index(name = "idx_stories_user_expired", columnList = "user_id, expired_at"),
+                @Index(name = "idx_stories_content_hash", columnList = "content_hash")
+        }
+)
 @EntityListeners(AuditingEntityListener.class)
 public class Story {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private String id;
 
     @Column(nullable = true)
     private String mediaUrl;
 
+    @Column(length = 64)
+    private String contentHash;
+
     @Enumerated(EnumType.STRING)
     private StoryType type;
 
+    @Embedded
+    private MediaMetadata metadata;
+
     private String caption;
     private boolean isArchived;
+    // maintained by StoryViewBuffer, so reading the count never touches story_views
+    private long viewCount;
 
     @ManyToOne
     @JoinColumn(name = "user_id")
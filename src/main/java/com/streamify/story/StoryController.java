@@ -1,5 +1,6 @@
 package com.streamify.story;
 
+import com.streamify.common.CursorPageResponse;
 import com.streamify.common.PageResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("stories")
@@ -86,6 +88,18 @@ public class StoryController {
                 .body(storyService.findAllStoryReplies(storyId, connectedUser, page, size));
     }
 
+    @GetMapping("/{story-id}/replies/cursor")
+    public ResponseEntity<CursorPageResponse<StoryReplyResponse>> findStoryRepliesAfterCursor(
+            @PathVariable("story-id") String storyId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(storyService.findStoryRepliesAfterCursor(storyId, connectedUser, cursor, size));
+    }
+
     @PutMapping("/{story-id}")
     public ResponseEntity<String> updateStory(
             @PathVariable("story-id") String storyId,
@@ -110,6 +124,12 @@ public class StoryController {
         storyService.deleteStoryById(storyId, connectedUser);
     }
 
-    /*@GetMapping("/following")
-    public ResponseEntity<List<Stro>>*/
+    @GetMapping("/following")
+    public ResponseEntity<List<StoryTrayResponse>> findFollowingStoryTray(
+            Authentication connectedUser
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(storyService.findFollowingStoryTray(connectedUser));
+    }
 }
@@ -1,5 +1,6 @@
 package com.streamify.story;
 
+import com.streamify.common.UuidV7;
 import com.streamify.user.User;
 import jakarta.persistence.*;
 import lombok.*;
@@ -14,11 +15,14 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "story_replies")
+@Table(
+        name = "story_replies",
+        indexes = @Index(name = "idx_story_replies_story_created", columnList = "story_id, created_at DESC, id DESC")
+)
 @EntityListeners(AuditingEntityListener.class)
 public class StoryReply {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private String id;
 
     @ManyToOne
@@ -3,10 +3,15 @@ package com.streamify.story;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface StoryReplyRepository extends JpaRepository<StoryReply, String> {
     @Query("""
@@ -15,4 +20,26 @@ public interface StoryReplyRepository extends JpaRepository<StoryReply, String>
             WHERE reply.story.id = :storyId
             """)
     Page<StoryReply> findAllStoryReplies(Pageable pageable, @Param("storyId") String storyId);
+
+    @Query("""
+            SELECT reply
+            FROM StoryReply reply
+            WHERE reply.story.id = :storyId
+            AND (reply.createdAt < :createdAt
+                OR (reply.createdAt = :createdAt AND reply.id < :replyId))
+            ORDER BY reply.createdAt DESC, reply.id DESC
+            """)
+    List<StoryReply> findAllStoryRepliesBefore(
+            @Param("storyId") String storyId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("replyId") String replyId,
+            Pageable pageable
+    );
+
+    @Modifying
+    @Query("""
+            DELETE FROM StoryReply reply
+            WHERE reply.story.id IN :storyIds
+            """)
+    int deleteAllByStoryIdIn(@Param("storyIds") Collection<String> storyIds);
 }
@@ -1,31 +1,87 @@
 package com.streamify.story;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface StoryRepository extends JpaRepository<Story, String> {
     @Query("""
-            SELECT story
+            SELECT new com.streamify.story.StoryRow(
+                story.id, story.caption, story.type, story.metadata, story.viewCount,
+                story.createdAt, story.modifiedAt, story.expiredAt
+            )
             FROM Story story
-            WHERE story.id = :storyId
+            WHERE story.user.id = :userId
             AND story.isArchived = false
             AND story.expiredAt > CURRENT_TIMESTAMP
+            ORDER BY story.createdAt ASC
             """)
-    Optional<Story> findValidStoryById(@Param("storyId") String storyId);
+    List<StoryRow> findAllValidUserStories(@Param("userId") String userId);
 
     @Query("""
-            SELECT story
+            SELECT new com.streamify.story.StoryTrayRow(
+                story.id, story.type, story.caption, story.createdAt, story.expiredAt,
+                author.id, author.username, author.profilePictureUrl
+            )
             FROM Story story
-            WHERE story.user.id = :userId
+            JOIN story.user author
+            WHERE author.id IN (
+                SELECT follow.following.id
+                FROM Follow follow
+                WHERE follow.follower.id = :viewerId
+            )
             AND story.isArchived = false
             AND story.expiredAt > CURRENT_TIMESTAMP
             ORDER BY story.createdAt ASC
             """)
-    List<Story> findAllValidUserStories(@Param("userId") String userId);
+    List<StoryTrayRow> findFollowingStoryTray(@Param("viewerId") String viewerId);
+
+    @Query("""
+            SELECT new com.streamify.story.ExpiredStory(story.id, story.mediaUrl, story.contentHash)
+            FROM Story story
+            WHERE story.isArchived = false
+            AND story.expiredAt <= :now
+            ORDER BY story.expiredAt ASC
+            """)
+    List<ExpiredStory> findExpiredStories(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // returns 0 when the story is already gone, e.g. taken by the expired story reaper,
+    // native with the story_views space so the rest of the stories region stays cached, the caller evicts the row
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "story_views"))
+    @Query(value = """
+            DELETE FROM stories
+            WHERE id = :storyId
+            """, nativeQuery = true)
+    int deleteStory(@Param("storyId") String storyId);
+
+    // native with the media_blobs space, so a finished transcode does not drop the whole stories region,
+    // the caller evicts the rows findIdsByContentHash returns
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "media_blobs"))
+    @Query(value = """
+            UPDATE stories
+            SET media_url = :mediaUrl
+            WHERE content_hash = :contentHash
+            """, nativeQuery = true)
+    int updateMediaUrlByContentHash(@Param("contentHash") String contentHash, @Param("mediaUrl") String mediaUrl);
+
+    @Query("""
+            SELECT story.id
+            FROM Story story
+            WHERE story.contentHash = :contentHash
+            """)
+    List<String> findIdsByContentHash(@Param("contentHash") String contentHash);
 }
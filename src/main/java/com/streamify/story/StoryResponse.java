@@ -1,5 +1,6 @@
 package com.streamify.story;
 
+import com.streamify.ffmpeg.MediaMetadata;
 import com.streamify.user.UserDto;
 import lombok.Builder;
 import lombok.Getter;
@@ -15,8 +16,10 @@ public class StoryResponse {
     private String id;
     private String caption;
     private StoryType type;
+    private MediaMetadata metadata;
     private UserDto user;
     private Set<StoryViewDto> viewer;
+    private long viewCount;
     private LocalDateTime createdAt;
     private LocalDateTime modifiedAt;
     private LocalDateTime expiredAt;
@@ -0,0 +1,21 @@
+package com.streamify.story;
+
+import com.streamify.ffmpeg.MediaMetadata;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// flat projection of an active story, so listing a user's stories never loads the entity graph
+@Getter
+@AllArgsConstructor
+public class StoryRow {
+    private String storyId;
+    private String caption;
+    private StoryType type;
+    private MediaMetadata metadata;
+    private long viewCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime modifiedAt;
+    private LocalDateTime expiredAt;
+}
@@ -1,7 +1,11 @@
 package com.streamify.story;
 
 import com.streamify.Storage.MediaService;
+import com.streamify.Storage.StoredMedia;
+import com.streamify.common.CacheEvictor;
+import com.streamify.common.CursorPageResponse;
 import com.streamify.common.Mapper;
+import com.streamify.common.PageCursor;
 import com.streamify.common.PageResponse;
 import com.streamify.user.User;
 import com.streamify.user.UserDto;
@@ -19,9 +23,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,15 +33,19 @@ public class StoryService {
     private final UserRepository userRepository;
     private final StoryViewRepository storyViewRepository;
     private final StoryReplyRepository storyReplyRepository;
+    private final StoryViewBuffer storyViewBuffer;
     private final Mapper mapper;
+    private final CacheEvictor cacheEvictor;
 
-    public StoryService(MediaService mediaService, StoryRepository storyRepository, UserRepository userRepository, StoryViewRepository storyViewRepository, StoryReplyRepository storyReplyRepository, Mapper mapper) {
+    public StoryService(MediaService mediaService, StoryRepository storyRepository, UserRepository userRepository, StoryViewRepository storyViewRepository, StoryReplyRepository storyReplyRepository, StoryViewBuffer storyViewBuffer, Mapper mapper, CacheEvictor cacheEvictor) {
         this.mediaService = mediaService;
         this.storyRepository = storyRepository;
         this.userRepository = userRepository;
         this.storyViewRepository = storyViewRepository;
         this.storyReplyRepository = storyReplyRepository;
+        this.storyViewBuffer = storyViewBuffer;
         this.mapper = mapper;
+        this.cacheEvictor = cacheEvictor;
     }
 
     @Transactional
@@ -48,30 +54,34 @@ public class StoryService {
         Story story = Story.builder()
                 .caption(caption)
                 .isArchived(isArchived)
-                .type(StoryType.IMAGE)
+                .type(content.getContentType() != null && content.getContentType().startsWith("video/") ? StoryType.VIDEO : StoryType.IMAGE)
                 .user(user)
                 .mediaUrl("")
                 .expiredAt(LocalDateTime.now().plusHours(12))
                 .build();
         Story savedStory = storyRepository.save(story);
-        String storageUrl = mediaService.uploadStoryContent(content, savedStory.getId(), user.getId());
-        savedStory.setMediaUrl(storageUrl);
+        StoredMedia storedMedia = mediaService.uploadStoryContent(content, savedStory.getId(), user.getId());
+        savedStory.setMediaUrl(storedMedia.mediaUrl());
+        savedStory.setContentHash(storedMedia.contentHash());
+        savedStory.setMetadata(storedMedia.metadata());
         return storyRepository.save(savedStory).getId();
     }
 
     public StoryResponse findStoryById(String storyId) {
-        Story story = storyRepository.findValidStoryById(storyId)
+        // by id, so the story and its author come out of the second level cache
+        Story story = storyRepository.findById(storyId)
+                .filter(validStory -> !validStory.isArchived() && validStory.getExpiredAt().isAfter(LocalDateTime.now()))
                 .orElseThrow(() ->
                         new EntityNotFoundException("Story is not found with ID: " + storyId)
                 );
-        Set<StoryViewDto> storyViewers = story.getViews()
+        Set<StoryViewDto> storyViewers = storyViewRepository.findViewersByStoryIdIn(List.of(story.getId()))
                 .stream()
                 .map(view -> StoryViewDto.builder()
-                    .id(view.getId())
-                    .storyId(view.getStory().getId())
+                    .id(view.getViewId())
+                    .storyId(view.getStoryId())
                     .viewer(UserDto.builder()
-                            .id(view.getViewer().getId())
-                            .username(view.getViewer().getUsername())
+                            .id(view.getViewerId())
+                            .username(view.getViewerUsername())
                             .avtarUrl(null) //todo -> impl user avtar
                             .build()
                     )
@@ -82,6 +92,7 @@ public class StoryService {
                 .id(story.getId())
                 .caption(story.getCaption())
                 .type(story.getType())
+                .metadata(story.getMetadata())
                 .user(UserDto.builder()
                         .id(story.getUser().getId())
                         .username(story.getUser().getUsername())
@@ -89,6 +100,7 @@ public class StoryService {
                         .build()
                 )
                 .viewer(storyViewers)
+                .viewCount(story.getViewCount())
                 .createdAt(story.getCreatedAt())
                 .modifiedAt(story.getModifiedAt())
                 .expiredAt(story.getExpiredAt())
@@ -100,43 +112,92 @@ public class StoryService {
                 .orElseThrow(() ->
                         new EntityNotFoundException("User not found with ID: " + userId)
                 );
-        List<Story> stories = storyRepository.findAllValidUserStories(user.getId());
-        return stories.stream().map(story -> {
-            List<StoryViewDto> storyViewers = story.getViews()
-                    .stream()
-                    .map(view -> StoryViewDto.builder()
-                            .id(view.getId())
-                            .storyId(view.getStory().getId())
-                            .viewer(UserDto.builder()
-                                    .id(view.getViewer().getId())
-                                    .username(view.getViewer().getUsername())
-                                    .avtarUrl(null) //todo -> impl user avtar
+        List<StoryRow> stories = storyRepository.findAllValidUserStories(user.getId());
+        if (stories.isEmpty()) {
+            return List.of();
+        }
+        // every viewer of every story in one query, already newest first
+        Map<String, List<StoryViewerRow>> viewersByStory = storyViewRepository.findViewersByStoryIdIn(
+                stories.stream().map(StoryRow::getStoryId).toList()
+        ).stream().collect(Collectors.groupingBy(StoryViewerRow::getStoryId));
+        UserDto author = UserDto.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .avtarUrl(null)
+                .build();
+        return stories.stream().map(story -> StoryResponse.builder()
+                .id(story.getStoryId())
+                .caption(story.getCaption())
+                .type(story.getType())
+                .metadata(story.getMetadata())
+                .user(author)
+                .viewer(viewersByStory.getOrDefault(story.getStoryId(), List.of())
+                        .stream()
+                        .map(view -> StoryViewDto.builder()
+                                .id(view.getViewId())
+                                .storyId(view.getStoryId())
+                                .viewer(UserDto.builder()
+                                        .id(view.getViewerId())
+                                        .username(view.getViewerUsername())
+                                        .avtarUrl(null) //todo -> impl user avtar
+                                        .build()
+                                )
+                                .viewedAt(view.getViewedAt())
+                                .build()
+                        )
+                        .collect(Collectors.toCollection(LinkedHashSet::new))
+                )
+                .viewCount(story.getViewCount())
+                .createdAt(story.getCreatedAt())
+                .modifiedAt(story.getModifiedAt())
+                .expiredAt(story.getExpiredAt())
+                .build()
+        ).toList();
+    }
+
+    public List<StoryTrayResponse> findFollowingStoryTray(Authentication connectedUser) {
+        User user = (User) connectedUser.getPrincipal();
+        List<StoryTrayRow> rows = storyRepository.findFollowingStoryTray(user.getId());
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Set<String> viewedStoryIds = new HashSet<>(storyViewRepository.findViewedStoryIds(
+                user.getId(),
+                rows.stream().map(StoryTrayRow::getStoryId).toList()
+        ));
+        // rows come oldest first, so every author's stories stay in playback order
+        Map<String, List<StoryTrayRow>> rowsByAuthor = rows.stream()
+                .collect(Collectors.groupingBy(StoryTrayRow::getUserId, LinkedHashMap::new, Collectors.toList()));
+        return rowsByAuthor.values()
+                .stream()
+                .map(authorRows -> {
+                    StoryTrayRow latest = authorRows.getLast();
+                    List<StoryTrayItem> stories = authorRows.stream()
+                            .map(row -> StoryTrayItem.builder()
+                                    .id(row.getStoryId())
+                                    .type(row.getType())
+                                    .caption(row.getCaption())
+                                    .seen(viewedStoryIds.contains(row.getStoryId()))
+                                    .createdAt(row.getCreatedAt())
+                                    .expiredAt(row.getExpiredAt())
+                                    .build()
+                            ).toList();
+                    return StoryTrayResponse.builder()
+                            .user(UserDto.builder()
+                                    .id(latest.getUserId())
+                                    .username(latest.getUsername())
+                                    .avtarUrl(latest.getProfilePictureUrl())
                                     .build()
                             )
-                            .viewedAt(view.getViewedAt())
-                            .build()
-                    ).toList();
-            return StoryResponse.builder()
-                    .id(story.getId())
-                    .caption(story.getCaption())
-                    .type(story.getType())
-                    .user(UserDto.builder()
-                            .id(story.getUser().getId())
-                            .username(story.getUser().getUsername())
-                            .avtarUrl(null)
-                            .build()
-                    )
-                    .viewer(storyViewers
-                            .stream()
-                            .sorted((firstStory, secondStory) ->
-                                    secondStory.getViewedAt().compareTo(firstStory.getViewedAt()))
-                            .collect(Collectors.toCollection(LinkedHashSet::new))
-                    )
-                    .createdAt(story.getCreatedAt())
-                    .modifiedAt(story.getModifiedAt())
-                    .expiredAt(story.getExpiredAt())
-                    .build();
-        }).toList();
+                            .stories(stories)
+                            .hasUnseen(stories.stream().anyMatch(story -> !story.isSeen()))
+                            .latestStoryAt(latest.getCreatedAt())
+                            .build();
+                })
+                // unseen trays first, then the most recently posted
+                .sorted(Comparator.comparing(StoryTrayResponse::isHasUnseen).reversed()
+                        .thenComparing(StoryTrayResponse::getLatestStoryAt, Comparator.reverseOrder()))
+                .toList();
     }
 
     private Story getStoryById(@NonNull String storyId) {
@@ -146,33 +207,8 @@ public class StoryService {
                 );
     }
 
-    private User getUserById(@NonNull String userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() ->
-                        new EntityNotFoundException("User is not found with ID: " + userId)
-                );
-    }
-
     public void viewStory(String storyId, String viewerId) {
-        Story story = getStoryById(storyId);
-        User viewer = getUserById(viewerId);
-        if (story.getViews().isEmpty()) {
-            story.setViews(new LinkedHashSet<>());
-        }
-        boolean isViewerAlreadyPresent = story.getViews()
-                .stream()
-                .anyMatch(storyView ->
-                        storyView.getViewer().getId().equals(viewer.getId())
-                );
-        if (isViewerAlreadyPresent) return;
-        StoryView view = storyViewRepository.save(StoryView.builder()
-                .story(story)
-                .viewer(viewer)
-                .viewedAt(LocalDateTime.now())
-                .build()
-        );
-        story.getViews().add(view);
-        storyRepository.save(story);
+        storyViewBuffer.record(storyId, viewerId);
     }
 
     @Transactional
@@ -217,6 +253,20 @@ public class StoryService {
                 .build();
     }
 
+    public CursorPageResponse<StoryReplyResponse> findStoryRepliesAfterCursor(String storyId, Authentication connectedUser, String cursor, int size) {
+        User user = (User) connectedUser.getPrincipal();
+        Story story = getStoryById(storyId);
+        // only story owner can read the reply on the story
+        if (!story.getUser().getId().equals(user.getId())) {
+            throw new IllegalStateException("You are not the story owner, so you can't read the replies");
+        }
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        List<StoryReply> storyReplies = storyReplyRepository.findAllStoryRepliesBefore(
+                story.getId(), pageCursor.createdAt(), pageCursor.id(), PageRequest.of(0, size + 1)
+        );
+        return CursorPageResponse.of(storyReplies, size, reply -> new PageCursor(reply.getCreatedAt(), reply.getId()), mapper::toStoryReplyResponse);
+    }
+
     @Transactional
     public String updateStory(String storyId, String caption, boolean isArchived, Authentication connectedUser) {
         User user = (User) connectedUser.getPrincipal();
@@ -236,10 +286,16 @@ public class StoryService {
         if (!story.getUser().getId().equals(user.getId())) {
             throw new IllegalStateException("You don;t have to permission to delete the story");
         }
-        boolean isStoryContentDeleted = mediaService.deleteStoryContent(story.getMediaUrl());
+        // the row goes first, if the expired story reaper got there already it has released the media itself
+        storyViewRepository.deleteAllByStoryIdIn(List.of(storyId));
+        storyReplyRepository.deleteAllByStoryIdIn(List.of(storyId));
+        if (storyRepository.deleteStory(storyId) == 0) {
+            return;
+        }
+        cacheEvictor.evict(Story.class, storyId);
+        boolean isStoryContentDeleted = mediaService.deleteStoryContent(story.getContentHash(), story.getMediaUrl());
         if (!isStoryContentDeleted) {
             throw new IllegalStateException("Story is not deleted due to some reasons!");
         }
-        storyRepository.deleteById(storyId);
     }
 }
@@ -0,0 +1,19 @@
+package com.streamify.story;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+public class StoryTrayItem {
+    private String id;
+    private StoryType type;
+    private String caption;
+    private boolean seen;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiredAt;
+}
@@ -0,0 +1,19 @@
+package com.streamify.story;
+
+import com.streamify.user.UserDto;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class StoryTrayResponse {
+    private UserDto user;
+    private List<StoryTrayItem> stories;
+    private boolean hasUnseen;
+    private LocalDateTime latestStoryAt;
+}
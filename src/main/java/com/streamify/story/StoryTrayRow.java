@@ -0,0 +1,20 @@
+package com.streamify.story;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// flat projection of an active story and its author, grouped into the tray in StoryService
+@Getter
+@AllArgsConstructor
+public class StoryTrayRow {
+    private String storyId;
+    private StoryType type;
+    private String caption;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiredAt;
+    private String userId;
+    private String username;
+    private String profilePictureUrl;
+}
@@ -1,5 +1,6 @@
 package com.streamify.story;
 
+import com.streamify.common.UuidV7;
 import com.streamify.user.User;
 import jakarta.persistence.*;
 import lombok.*;
@@ -14,11 +15,15 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "story_views")
+@Table(
+        name = "story_views",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"story_id", "viewer_id"}),
+        indexes = @Index(name = "idx_story_views_viewer_story", columnList = "viewer_id, story_id")
+)
 @EntityListeners(AuditingEntityListener.class)
 public class StoryView {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private String id;
 
     @ManyToOne
@@ -0,0 +1,128 @@
+package com.streamify.story;
+
+import com.streamify.common.UuidV7Generator;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class StoryViewBuffer {
+    private final Logger LOGGER = LoggerFactory.getLogger(StoryViewBuffer.class);
+
+    // the join drops views of deleted stories or unknown viewers instead of failing the whole batch
+    private static final String INSERT_VIEW = """
+            INSERT INTO story_views (id, story_id, viewer_id, viewed_at)
+            SELECT ?, story.id, viewer.id, ?
+            FROM stories story, users viewer
+            WHERE story.id = ?
+            AND viewer.id = ?
+            ON CONFLICT (story_id, viewer_id) DO NOTHING
+            """;
+    private static final String INCREMENT_VIEW_COUNT = """
+            UPDATE stories
+            SET view_count = view_count + ?
+            WHERE id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    // keyed by (story, viewer), so repeated views inside one flush window collapse in memory
+    private final ConcurrentHashMap<PendingView, LocalDateTime> pendingViews = new ConcurrentHashMap<>();
+
+    @Value("${application.story.views.batch-size:500}")
+    private int batchSize;
+
+    @Value("${application.story.views.max-pending:50000}")
+    private int maxPending;
+
+    public StoryViewBuffer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public void record(String storyId, String viewerId) {
+        pendingViews.putIfAbsent(new PendingView(storyId, viewerId), LocalDateTime.now());
+        // back pressure, the request that overflows the buffer pays for draining it
+        if (pendingViews.size() >= maxPending) {
+            flush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.story.views.flush-interval-ms:1000}")
+    public void flushPendingViews() {
+        flush();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private synchronized void flush() {
+        while (!pendingViews.isEmpty()) {
+            List<Map.Entry<PendingView, LocalDateTime>> batch = new ArrayList<>(batchSize);
+            Iterator<PendingView> iterator = pendingViews.keySet().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                PendingView view = iterator.next();
+                LocalDateTime viewedAt = pendingViews.remove(view);
+                if (viewedAt != null) {
+                    batch.add(Map.entry(view, viewedAt));
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            Set<String> viewedStoryIds;
+            try {
+                viewedStoryIds = transactionTemplate.execute(status -> writeBatch(batch));
+            } catch (RuntimeException exception) {
+                // views are best effort, a failed batch is dropped rather than retried forever
+                LOGGER.error("Failed to flush {} story views", batch.size(), exception);
+                return;
+            }
+            // the counters are written past hibernate, so the cached stories still hold the old count
+            viewedStoryIds.forEach(storyId -> entityManagerFactory.getCache().evict(Story.class, storyId));
+        }
+    }
+
+    private Set<String> writeBatch(List<Map.Entry<PendingView, LocalDateTime>> batch) {
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT_VIEW, batch, batch.size(), (statement, entry) -> {
+            statement.setString(1, UuidV7Generator.next());
+            statement.setTimestamp(2, Timestamp.valueOf(entry.getValue()));
+            statement.setString(3, entry.getKey().storyId());
+            statement.setString(4, entry.getKey().viewerId());
+        })[0];
+        // only rows that were actually inserted count, a repeat view hits the unique constraint and is skipped
+        Map<String, Integer> newViewsByStory = new HashMap<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                newViewsByStory.merge(batch.get(i).getKey().storyId(), inserted[i], Integer::sum);
+            }
+        }
+        if (newViewsByStory.isEmpty()) {
+            return Set.of();
+        }
+        jdbcTemplate.batchUpdate(INCREMENT_VIEW_COUNT, newViewsByStory.entrySet(), newViewsByStory.size(), (statement, entry) -> {
+            statement.setInt(1, entry.getValue());
+            statement.setString(2, entry.getKey());
+        });
+        LOGGER.debug("Flushed {} story views, {} new", batch.size(), newViewsByStory.values().stream().mapToInt(Integer::intValue).sum());
+        return newViewsByStory.keySet();
+    }
+
+    private record PendingView(String storyId, String viewerId) {
+    }
+}
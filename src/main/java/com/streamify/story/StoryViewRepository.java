@@ -1,8 +1,39 @@
 package com.streamify.story;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface StoryViewRepository extends JpaRepository<StoryView, String> {
+    @Query("""
+            SELECT storyView.story.id
+            FROM StoryView storyView
+            WHERE storyView.viewer.id = :viewerId
+            AND storyView.story.id IN :storyIds
+            """)
+    List<String> findViewedStoryIds(@Param("viewerId") String viewerId, @Param("storyIds") Collection<String> storyIds);
+
+    @Query("""
+            SELECT new com.streamify.story.StoryViewerRow(
+                storyView.id, storyView.story.id, viewer.id, viewer.username, storyView.viewedAt
+            )
+            FROM StoryView storyView
+            JOIN storyView.viewer viewer
+            WHERE storyView.story.id IN :storyIds
+            ORDER BY storyView.viewedAt DESC
+            """)
+    List<StoryViewerRow> findViewersByStoryIdIn(@Param("storyIds") Collection<String> storyIds);
+
+    @Modifying
+    @Query("""
+            DELETE FROM StoryView storyView
+            WHERE storyView.story.id IN :storyIds
+            """)
+    int deleteAllByStoryIdIn(@Param("storyIds") Collection<String> storyIds);
 }
@@ -0,0 +1,17 @@
+package com.streamify.story;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// one viewer of a story, fetched for a whole list of stories at once
+@Getter
+@AllArgsConstructor
+public class StoryViewerRow {
+    private String viewId;
+    private String storyId;
+    private String viewerId;
+    private String viewerUsername;
+    private LocalDateTime viewedAt;
+}
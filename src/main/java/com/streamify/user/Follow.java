@@ -0,0 +1,44 @@
+package com.streamify.user;
+
+import com.streamify.common.UuidV7;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(
+        name = "follows",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"follower_id", "following_id"}),
+        indexes = {
+                @Index(name = "idx_follows_following_created", columnList = "following_id, created_at DESC"),
+                @Index(name = "idx_follows_follower_created", columnList = "follower_id, created_at DESC")
+        }
+)
+@EntityListeners(AuditingEntityListener.class)
+public class Follow {
+    @Id
+    @UuidV7
+    private String id;
+
+    // the user who follows
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "follower_id", nullable = false)
+    private User follower;
+
+    // the user being followed
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "following_id", nullable = false)
+    private User following;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
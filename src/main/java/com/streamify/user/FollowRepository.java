@@ -0,0 +1,106 @@
+package com.streamify.user;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FollowRepository extends JpaRepository<Follow, String> {
+    @Query("""
+            SELECT COUNT(follow) > 0
+            FROM Follow follow
+            WHERE follow.follower.id = :followerId
+            AND follow.following.id = :followingId
+            """)
+    boolean isFollowing(@Param("followerId") String followerId, @Param("followingId") String followingId);
+
+    // returns 0 when the follow already exists, so a concurrent double follow never hits the unique constraint
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "follows"))
+    @Query(value = """
+            INSERT INTO follows (id, follower_id, following_id, created_at)
+            VALUES (:id, :followerId, :followingId, CURRENT_TIMESTAMP)
+            ON CONFLICT (follower_id, following_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertFollow(@Param("id") String id, @Param("followerId") String followerId, @Param("followingId") String followingId);
+
+    @Modifying
+    @Query("""
+            DELETE FROM Follow follow
+            WHERE follow.follower.id = :followerId
+            AND follow.following.id = :followingId
+            """)
+    int deleteFollow(@Param("followerId") String followerId, @Param("followingId") String followingId);
+
+    @Query(value = """
+            SELECT new com.streamify.user.UserDto(follower.id, follower.username, follower.profilePictureUrl)
+            FROM Follow follow
+            JOIN follow.follower follower
+            WHERE follow.following.id = :userId
+            ORDER BY follow.createdAt DESC
+            """,
+            countQuery = """
+            SELECT COUNT(follow)
+            FROM Follow follow
+            WHERE follow.following.id = :userId
+            """)
+    Page<UserDto> findFollowers(@Param("userId") String userId, Pageable pageable);
+
+    @Query(value = """
+            SELECT new com.streamify.user.UserDto(following.id, following.username, following.profilePictureUrl)
+            FROM Follow follow
+            JOIN follow.following following
+            WHERE follow.follower.id = :userId
+            ORDER BY follow.createdAt DESC
+            """,
+            countQuery = """
+            SELECT COUNT(follow)
+            FROM Follow follow
+            WHERE follow.follower.id = :userId
+            """)
+    Page<UserDto> findFollowings(@Param("userId") String userId, Pageable pageable);
+
+    // accounts the user follows that follow the user back
+    @Query(value = """
+            SELECT new com.streamify.user.UserDto(following.id, following.username, following.profilePictureUrl)
+            FROM Follow follow
+            JOIN follow.following following
+            WHERE follow.follower.id = :userId
+            AND EXISTS (
+                SELECT 1
+                FROM Follow back
+                WHERE back.follower.id = following.id
+                AND back.following.id = :userId
+            )
+            ORDER BY follow.createdAt DESC
+            """,
+            countQuery = """
+            SELECT COUNT(follow)
+            FROM Follow follow
+            WHERE follow.follower.id = :userId
+            AND EXISTS (
+                SELECT 1
+                FROM Follow back
+                WHERE back.follower.id = follow.following.id
+                AND back.following.id = :userId
+            )
+            """)
+    Page<UserDto> findMutuals(@Param("userId") String userId, Pageable pageable);
+
+    @Query("""
+            SELECT follow.following.id
+            FROM Follow follow
+            WHERE follow.follower.id = :userId
+            AND follow.following.followerCount > :followerCount
+            """)
+    List<String> findFollowingIdsWithFollowerCountAbove(@Param("userId") String userId, @Param("followerCount") int followerCount);
+}
@@ -1,5 +1,6 @@
 package com.streamify.user;
 
+import com.streamify.common.UuidV7;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -14,7 +15,7 @@ import java.time.LocalDateTime;
 @Table(name = "tokens")
 public class Token {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private String id;
     private String token;
     private LocalDateTime createdAt;
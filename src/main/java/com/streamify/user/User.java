@@ -1,9 +1,13 @@
 package com.streamify.user;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.streamify.common.UuidV7;
 import com.streamify.post.Post;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -22,11 +26,14 @@ import java.util.*;
 @AllArgsConstructor
 @Builder
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@DynamicUpdate
 @Table(name = "users")
 @EntityListeners(AuditingEntityListener.class)
 public class User implements UserDetails, Principal {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     private String id;
 
     // authentication fields
@@ -75,22 +82,9 @@ public class User implements UserDetails, Principal {
     private String location;
     private String languagePreference;
 
-    // relations
+    // relations, the follow graph lives in the follows table (see Follow)
     @JsonIgnore
-    @ManyToMany(fetch = FetchType.EAGER)
-    @JoinTable(
-            name = "user_followers",
-            joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "follower_id")
-    )
-    private Set<User> followers = new HashSet<>();
-
-    @JsonIgnore
-    @ManyToMany(mappedBy = "followers", fetch = FetchType.EAGER)
-    private Set<User> following = new HashSet<>();
-
-    @JsonIgnore
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "user_saved_posts",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -98,10 +92,6 @@ public class User implements UserDetails, Principal {
     )
     private Set<Post> savedPost = new LinkedHashSet<>();
 
-    @JsonIgnore
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "user")
-    private List<Token> tokens;
-
     @Override
     public String getName() {
         return fullName;
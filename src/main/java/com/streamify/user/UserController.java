@@ -1,5 +1,6 @@
 package com.streamify.user;
 
+import com.streamify.common.CursorPageResponse;
 import com.streamify.common.PageResponse;
 import com.streamify.post.PostResponse;
 import com.streamify.post.PostService;
@@ -46,22 +47,82 @@ public class UserController {
                 .body(userService.findUserById(userId));
     }
 
+    @DeleteMapping("/follow/{following-id}")
+    public ResponseEntity<String> unfollowUser(
+            @PathVariable("following-id") String followingId,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(userService.unfollowUser(followingId, connectedUser));
+    }
+
+    @GetMapping("/follow/{following-id}")
+    public ResponseEntity<Boolean> isFollowing(
+            @PathVariable("following-id") String followingId,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(userService.isFollowing(followingId, connectedUser));
+    }
+
     @GetMapping("/followers")
-    public ResponseEntity<List<UserDto>> findMyFollowers(
+    public ResponseEntity<PageResponse<UserDto>> findMyFollowers(
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
             Authentication connectedUser
     ) {
+        User user = (User) connectedUser.getPrincipal();
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(userService.findUserFollowers(connectedUser));
+                .body(userService.findUserFollowers(user.getId(), page, size));
     }
 
     @GetMapping("/followings")
-    public ResponseEntity<List<UserDto>> findMyFollowings(
+    public ResponseEntity<PageResponse<UserDto>> findMyFollowings(
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ) {
+        User user = (User) connectedUser.getPrincipal();
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(userService.findUserFollowings(user.getId(), page, size));
+    }
+
+    @GetMapping("/mutuals")
+    public ResponseEntity<PageResponse<UserDto>> findMyMutuals(
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
             Authentication connectedUser
     ) {
+        User user = (User) connectedUser.getPrincipal();
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(userService.findUserFollowings(connectedUser));
+                .body(userService.findUserMutuals(user.getId(), page, size));
+    }
+
+    @GetMapping("/{user-id}/followers")
+    public ResponseEntity<PageResponse<UserDto>> findUserFollowers(
+            @PathVariable("user-id") String userId,
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(userService.findUserFollowers(userId, page, size));
+    }
+
+    @GetMapping("/{user-id}/followings")
+    public ResponseEntity<PageResponse<UserDto>> findUserFollowings(
+            @PathVariable("user-id") String userId,
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(userService.findUserFollowings(userId, page, size));
     }
 
     @GetMapping("/{user-id}/posts")
@@ -75,6 +136,17 @@ public class UserController {
                 .body(postService.getAllPostsByUserId(page, size, userId));
     }
 
+    @GetMapping("/{user-id}/posts/cursor")
+    public ResponseEntity<CursorPageResponse<PostResponse>> getPostsByUserAfterCursor(
+            @PathVariable("user-id") String userId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(postService.getPostsByUserIdAfterCursor(cursor, size, userId));
+    }
+
     @GetMapping("/{user-id}/reels")
     public ResponseEntity<PageResponse<PostResponse>> getAllReelsByUser(
             @PathVariable("user-id") String userId,
@@ -86,6 +158,17 @@ public class UserController {
                 .body(postService.getAllReelsByUserId(page, size, userId));
     }
 
+    @GetMapping("/{user-id}/reels/cursor")
+    public ResponseEntity<CursorPageResponse<PostResponse>> getReelsByUserAfterCursor(
+            @PathVariable("user-id") String userId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(postService.getReelsByUserIdAfterCursor(cursor, size, userId));
+    }
+
     @GetMapping("/{user-id}/saved-posts")
     public ResponseEntity<PageResponse<PostResponse>> getAllSavedPostsByUser(
             @PathVariable("user-id") String userId,
@@ -108,6 +191,17 @@ public class UserController {
                 .body(postService.getAllMyPost(page, size, connectedUser));
     }
 
+    @GetMapping("/my-posts/cursor")
+    public ResponseEntity<CursorPageResponse<PostResponse>> getMyPostsAfterCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10", required = false) int size,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(postService.getMyPostsAfterCursor(cursor, size, connectedUser));
+    }
+
     @GetMapping("/{user-id}/stories")
     public ResponseEntity<List<StoryResponse>> findStoryByUser(
             @PathVariable("user-id") String userId
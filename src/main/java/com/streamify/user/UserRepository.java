@@ -1,6 +1,12 @@
 package com.streamify.user;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Repository;
 
@@ -17,4 +23,23 @@ public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByPhone(String phone);
 
     Boolean existsByEmail(String email);
+
+    // native with the follows space, so a follow does not drop the whole users region, the caller evicts the one user
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "follows"))
+    @Query(value = """
+            UPDATE users
+            SET follower_count = follower_count + :delta
+            WHERE id = :userId
+            """, nativeQuery = true)
+    int updateFollowerCount(@Param("userId") String userId, @Param("delta") int delta);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "follows"))
+    @Query(value = """
+            UPDATE users
+            SET following_count = following_count + :delta
+            WHERE id = :userId
+            """, nativeQuery = true)
+    int updateFollowingCount(@Param("userId") String userId, @Param("delta") int delta);
 }
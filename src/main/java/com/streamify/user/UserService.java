@@ -1,8 +1,13 @@
 package com.streamify.user;
 
-import com.streamify.common.Mapper;
+import com.streamify.common.CacheEvictor;
+import com.streamify.common.PageResponse;
+import com.streamify.common.UuidV7Generator;
+import com.streamify.feed.FeedService;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.lang.NonNull;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
@@ -12,11 +17,15 @@ import java.util.List;
 @Service
 public class UserService {
     private final UserRepository userRepository;
-    private final Mapper mapper;
+    private final FollowRepository followRepository;
+    private final FeedService feedService;
+    private final CacheEvictor cacheEvictor;
 
-    public UserService(UserRepository userRepository, Mapper mapper) {
+    public UserService(UserRepository userRepository, FollowRepository followRepository, FeedService feedService, CacheEvictor cacheEvictor) {
         this.userRepository = userRepository;
-        this.mapper = mapper;
+        this.followRepository = followRepository;
+        this.feedService = feedService;
+        this.cacheEvictor = cacheEvictor;
     }
 
     public User findUserById(@NonNull String userId) {
@@ -27,36 +36,64 @@ public class UserService {
     @Transactional
     public String followUser(String followingId, Authentication connectedUser) {
         User user = (User) connectedUser.getPrincipal();
+        if (user.getId().equals(followingId)) {
+            throw new IllegalStateException("You can't follow yourself!");
+        }
         User followUser = findUserById(followingId);
+        // the id is generated here, so follows stay time ordered like every other @UuidV7 row
+        if (followRepository.insertFollow(UuidV7Generator.next(), user.getId(), followUser.getId()) == 0) {
+            return "Already following " + followUser.getUsername();
+        }
+        // counters are updated in place, never read-modify-write
+        userRepository.updateFollowerCount(followUser.getId(), 1);
+        userRepository.updateFollowingCount(user.getId(), 1);
+        cacheEvictor.evictAll(User.class, List.of(followUser.getId(), user.getId()));
 
-        // Add user to followUser's followers list
-        followUser.getFollowers().add(user);
-        followUser.setFollowerCount(followUser.getFollowerCount() + 1);
-
-        // Add followUser to user's following list
-        user.getFollowing().add(followUser);
-        user.setFollowingCount(user.getFollowingCount() + 1);
-
-        // Save both users to update both sides of the relationship
-        userRepository.save(user);
-        userRepository.save(followUser);
-
+        // seed the home feed with the recent posts of the followed account
+        feedService.backfillTimeline(user.getId(), followUser.getId());
         return "Followed " + followUser.getUsername();
     }
 
-    public List<UserDto> findUserFollowers(Authentication connectedUser) {
+    @Transactional
+    public String unfollowUser(String followingId, Authentication connectedUser) {
         User user = (User) connectedUser.getPrincipal();
-        return user.getFollowers()
-                .stream()
-                .map(mapper::toUserDto)
-                .toList();
+        User followUser = findUserById(followingId);
+        if (followRepository.deleteFollow(user.getId(), followUser.getId()) == 0) {
+            return "Not following " + followUser.getUsername();
+        }
+        userRepository.updateFollowerCount(followUser.getId(), -1);
+        userRepository.updateFollowingCount(user.getId(), -1);
+        cacheEvictor.evictAll(User.class, List.of(followUser.getId(), user.getId()));
+        feedService.removeAuthorFromTimeline(user.getId(), followUser.getId());
+        return "Unfollowed " + followUser.getUsername();
     }
 
-    public List<UserDto> findUserFollowings(Authentication connectedUser) {
+    public boolean isFollowing(String followingId, Authentication connectedUser) {
         User user = (User) connectedUser.getPrincipal();
-        return user.getFollowing()
-                .stream()
-                .map(mapper::toUserDto)
-                .toList();
+        return followRepository.isFollowing(user.getId(), followingId);
+    }
+
+    public PageResponse<UserDto> findUserFollowers(String userId, int page, int size) {
+        return toPageResponse(followRepository.findFollowers(userId, PageRequest.of(page, size)));
+    }
+
+    public PageResponse<UserDto> findUserFollowings(String userId, int page, int size) {
+        return toPageResponse(followRepository.findFollowings(userId, PageRequest.of(page, size)));
+    }
+
+    public PageResponse<UserDto> findUserMutuals(String userId, int page, int size) {
+        return toPageResponse(followRepository.findMutuals(userId, PageRequest.of(page, size)));
+    }
+
+    private PageResponse<UserDto> toPageResponse(Page<UserDto> users) {
+        return PageResponse.<UserDto>builder()
+                .content(users.getContent())
+                .number(users.getNumber())
+                .size(users.getSize())
+                .totalElements(users.getTotalElements())
+                .totalPages(users.getTotalPages())
+                .first(users.isFirst())
+                .last(users.isLast())
+                .build();
     }
 }
@@ -0,0 +1,252 @@
+-- the schema hibernate used to create on start up, from here on every change is a new migration
+
+CREATE TABLE users (
+    id                    VARCHAR(255) NOT NULL,
+    email                 VARCHAR(255),
+    phone                 VARCHAR(255),
+    password              VARCHAR(255),
+    is_verified           BOOLEAN      NOT NULL,
+    create_at             DATE         NOT NULL,
+    last_modified_at      DATE,
+    username              VARCHAR(255),
+    full_name             VARCHAR(255),
+    bio                   VARCHAR(150),
+    profile_picture_url   VARCHAR(255),
+    website               VARCHAR(255),
+    gender                VARCHAR(255),
+    is_private            BOOLEAN      NOT NULL,
+    allow_message_request BOOLEAN      NOT NULL,
+    two_factor_enable     BOOLEAN      NOT NULL,
+    follower_count        INTEGER      NOT NULL,
+    following_count       INTEGER      NOT NULL,
+    posts_count           INTEGER      NOT NULL,
+    account_status        SMALLINT CHECK (account_status BETWEEN 0 AND 2),
+    last_login_at         TIMESTAMP(6),
+    date_of_birth         DATE,
+    location              VARCHAR(255),
+    language_preference   VARCHAR(255),
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_phone UNIQUE (phone),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE tokens (
+    id           VARCHAR(255) NOT NULL,
+    token        VARCHAR(255),
+    created_at   TIMESTAMP(6),
+    expires_at   TIMESTAMP(6),
+    validated_at TIMESTAMP(6),
+    user_id      VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_tokens PRIMARY KEY (id),
+    CONSTRAINT fk_tokens_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE follows (
+    id           VARCHAR(255) NOT NULL,
+    follower_id  VARCHAR(255) NOT NULL,
+    following_id VARCHAR(255) NOT NULL,
+    created_at   TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_follows PRIMARY KEY (id),
+    CONSTRAINT uk_follows_follower_following UNIQUE (follower_id, following_id),
+    CONSTRAINT fk_follows_follower FOREIGN KEY (follower_id) REFERENCES users (id),
+    CONSTRAINT fk_follows_following FOREIGN KEY (following_id) REFERENCES users (id)
+);
+CREATE INDEX idx_follows_following_created ON follows (following_id, created_at DESC);
+CREATE INDEX idx_follows_follower_created ON follows (follower_id, created_at DESC);
+
+CREATE TABLE posts (
+    id                         VARCHAR(255)  NOT NULL,
+    caption                    VARCHAR(2200),
+    created_at                 TIMESTAMP(6)  NOT NULL,
+    updated_at                 TIMESTAMP(6),
+    visibility                 SMALLINT      NOT NULL CHECK (visibility BETWEEN 0 AND 2),
+    is_archived                BOOLEAN       NOT NULL,
+    location                   VARCHAR(255),
+    is_reel                    BOOLEAN       NOT NULL,
+    likes                      INTEGER       NOT NULL,
+    hide_likes_and_view_counts BOOLEAN       NOT NULL,
+    allow_comments             BOOLEAN       NOT NULL,
+    user_id                    VARCHAR(255)  NOT NULL,
+    CONSTRAINT pk_posts PRIMARY KEY (id),
+    CONSTRAINT fk_posts_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+CREATE INDEX idx_posts_user_created ON posts (user_id, created_at DESC, id DESC);
+
+CREATE TABLE post_collaborators (
+    post_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_post_collaborators PRIMARY KEY (post_id, user_id),
+    CONSTRAINT fk_post_collaborators_post FOREIGN KEY (post_id) REFERENCES posts (id),
+    CONSTRAINT fk_post_collaborators_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE user_saved_posts (
+    user_id VARCHAR(255) NOT NULL,
+    post_id VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_user_saved_posts PRIMARY KEY (user_id, post_id),
+    CONSTRAINT fk_user_saved_posts_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_saved_posts_post FOREIGN KEY (post_id) REFERENCES posts (id)
+);
+
+CREATE TABLE post_media (
+    id               VARCHAR(255) NOT NULL,
+    post_id          VARCHAR(255) NOT NULL,
+    media_url        VARCHAR(255),
+    type             VARCHAR(255),
+    alt_text         VARCHAR(255),
+    content_hash     VARCHAR(64),
+    duration_seconds FLOAT(53),
+    width            INTEGER,
+    height           INTEGER,
+    rotation         INTEGER,
+    video_codec      VARCHAR(255),
+    audio_codec      VARCHAR(255),
+    bit_rate         BIGINT,
+    frame_rate       FLOAT(53),
+    CONSTRAINT pk_post_media PRIMARY KEY (id),
+    CONSTRAINT fk_post_media_post FOREIGN KEY (post_id) REFERENCES posts (id)
+);
+CREATE INDEX idx_post_media_content_hash ON post_media (content_hash);
+
+CREATE TABLE post_likes (
+    id         VARCHAR(255) NOT NULL,
+    post_id    VARCHAR(255) NOT NULL,
+    user_id    VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_post_likes PRIMARY KEY (id),
+    CONSTRAINT uk_post_likes_post_user UNIQUE (post_id, user_id),
+    CONSTRAINT fk_post_likes_post FOREIGN KEY (post_id) REFERENCES posts (id) ON DELETE CASCADE,
+    CONSTRAINT fk_post_likes_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE comments (
+    id                VARCHAR(255)  NOT NULL,
+    content           VARCHAR(2200) NOT NULL,
+    created_at        TIMESTAMP(6)  NOT NULL,
+    updated_at        TIMESTAMP(6),
+    parent_comment_id VARCHAR(255),
+    user_id           VARCHAR(255),
+    post_id           VARCHAR(255),
+    likes             INTEGER       NOT NULL,
+    reply_count       INTEGER       NOT NULL,
+    status            VARCHAR(255) CHECK (status IN ('ACTIVE', 'DELETED', 'HIDDEN')),
+    CONSTRAINT pk_comments PRIMARY KEY (id),
+    CONSTRAINT fk_comments_parent_comment FOREIGN KEY (parent_comment_id) REFERENCES comments (id),
+    CONSTRAINT fk_comments_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_comments_post FOREIGN KEY (post_id) REFERENCES posts (id)
+);
+CREATE INDEX idx_comments_post_created ON comments (post_id, created_at DESC, id DESC);
+CREATE INDEX idx_comments_parent_created ON comments (parent_comment_id, created_at DESC, id DESC);
+
+CREATE TABLE comment_likes (
+    id         VARCHAR(255) NOT NULL,
+    comment_id VARCHAR(255) NOT NULL,
+    user_id    VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_comment_likes PRIMARY KEY (id),
+    CONSTRAINT uk_comment_likes_comment_user UNIQUE (comment_id, user_id),
+    CONSTRAINT fk_comment_likes_comment FOREIGN KEY (comment_id) REFERENCES comments (id) ON DELETE CASCADE,
+    CONSTRAINT fk_comment_likes_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE TABLE stories (
+    id               VARCHAR(255) NOT NULL,
+    media_url        VARCHAR(255),
+    content_hash     VARCHAR(64),
+    type             VARCHAR(255) CHECK (type IN ('IMAGE', 'VIDEO')),
+    duration_seconds FLOAT(53),
+    width            INTEGER,
+    height           INTEGER,
+    rotation         INTEGER,
+    video_codec      VARCHAR(255),
+    audio_codec      VARCHAR(255),
+    bit_rate         BIGINT,
+    frame_rate       FLOAT(53),
+    caption          VARCHAR(255),
+    is_archived      BOOLEAN      NOT NULL,
+    view_count       BIGINT       NOT NULL,
+    user_id          VARCHAR(255),
+    created_at       TIMESTAMP(6) NOT NULL,
+    modified_at      TIMESTAMP(6),
+    expired_at       TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_stories PRIMARY KEY (id),
+    CONSTRAINT fk_stories_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+CREATE INDEX idx_stories_user_expired ON stories (user_id, expired_at);
+CREATE INDEX idx_stories_content_hash ON stories (content_hash);
+
+CREATE TABLE story_views (
+    id        VARCHAR(255) NOT NULL,
+    story_id  VARCHAR(255),
+    viewer_id VARCHAR(255),
+    viewed_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_story_views PRIMARY KEY (id),
+    CONSTRAINT uk_story_views_story_viewer UNIQUE (story_id, viewer_id),
+    CONSTRAINT fk_story_views_story FOREIGN KEY (story_id) REFERENCES stories (id),
+    CONSTRAINT fk_story_views_viewer FOREIGN KEY (viewer_id) REFERENCES users (id)
+);
+CREATE INDEX idx_story_views_viewer_story ON story_views (viewer_id, story_id);
+
+CREATE TABLE story_replies (
+    id         VARCHAR(255) NOT NULL,
+    story_id   VARCHAR(255),
+    user_id    VARCHAR(255),
+    content    VARCHAR(500) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_story_replies PRIMARY KEY (id),
+    CONSTRAINT fk_story_replies_story FOREIGN KEY (story_id) REFERENCES stories (id),
+    CONSTRAINT fk_story_replies_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+CREATE INDEX idx_story_replies_story_created ON story_replies (story_id, created_at DESC, id DESC);
+
+CREATE TABLE timeline_entries (
+    id         VARCHAR(255) NOT NULL,
+    owner_id   VARCHAR(255) NOT NULL,
+    post_id    VARCHAR(255) NOT NULL,
+    author_id  VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_timeline_entries PRIMARY KEY (id),
+    CONSTRAINT uk_timeline_entries_owner_post UNIQUE (owner_id, post_id)
+);
+CREATE INDEX idx_timeline_entries_owner_created ON timeline_entries (owner_id, created_at DESC, post_id DESC);
+
+CREATE TABLE transcode_jobs (
+    id              VARCHAR(255)  NOT NULL,
+    target          VARCHAR(255)  NOT NULL CHECK (target IN ('STORY', 'POST')),
+    target_id       VARCHAR(255)  NOT NULL,
+    user_id         VARCHAR(255)  NOT NULL,
+    source_url      VARCHAR(255)  NOT NULL,
+    content_hash    VARCHAR(64),
+    output_url      VARCHAR(255),
+    status          VARCHAR(255)  NOT NULL CHECK (status IN ('QUEUED', 'RUNNING', 'DONE', 'FAILED')),
+    priority        INTEGER       NOT NULL,
+    attempts        INTEGER       NOT NULL,
+    progress        INTEGER       NOT NULL,
+    last_error      VARCHAR(1000),
+    next_attempt_at TIMESTAMP(6)  NOT NULL,
+    started_at      TIMESTAMP(6),
+    finished_at     TIMESTAMP(6),
+    created_at      TIMESTAMP(6)  NOT NULL,
+    updated_at      TIMESTAMP(6),
+    CONSTRAINT pk_transcode_jobs PRIMARY KEY (id)
+);
+
+CREATE TABLE media_blobs (
+    hash             VARCHAR(64)  NOT NULL,
+    storage_key      VARCHAR(255) NOT NULL,
+    hls_key          VARCHAR(255),
+    content_type     VARCHAR(255),
+    size             BIGINT       NOT NULL,
+    reference_count  INTEGER      NOT NULL,
+    duration_seconds FLOAT(53),
+    width            INTEGER,
+    height           INTEGER,
+    rotation         INTEGER,
+    video_codec      VARCHAR(255),
+    audio_codec      VARCHAR(255),
+    bit_rate         BIGINT,
+    frame_rate       FLOAT(53),
+    created_at       TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_media_blobs PRIMARY KEY (hash)
+);
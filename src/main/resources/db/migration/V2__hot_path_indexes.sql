@@ -0,0 +1,49 @@
+-- indexes shaped after the repository queries, postgres does not index foreign keys on its own
+-- visibility is stored as the PostVisibility ordinal, 0 is PUBLIC
+
+-- profile grid and fan-out-on-read: PostRepository.findAllDisplayablePosts*, findDisplayablePostsByAuthors
+CREATE INDEX idx_posts_user_displayable ON posts (user_id, created_at DESC, id DESC)
+    WHERE is_archived = false AND visibility = 0;
+
+-- reels tab: PostRepository.findAllDisplayableReels*
+CREATE INDEX idx_posts_user_reels ON posts (user_id, created_at DESC, id DESC)
+    WHERE is_reel = true AND is_archived = false AND visibility = 0;
+
+-- media and collaborators of a page of posts: PostMediaRepository.findMediaRowsByPostIdIn, PostRepository.findCollaboratorsByPostIdIn
+CREATE INDEX idx_post_media_post ON post_media (post_id);
+
+-- top level comments of a post: CommentRepository.findCommentThreadsBefore
+CREATE INDEX idx_comments_post_threads ON comments (post_id, created_at DESC, id DESC)
+    WHERE parent_comment_id IS NULL AND status = 'ACTIVE';
+
+-- first replies of a page of threads: CommentRepository.findFirstReplies, findAllCommentRepliesBefore
+CREATE INDEX idx_comments_parent_active ON comments (parent_comment_id, created_at DESC, id DESC)
+    WHERE status = 'ACTIVE';
+
+-- expired stories still to be reaped: StoryRepository.findExpiredStories
+CREATE INDEX idx_stories_unarchived_expired ON stories (expired_at)
+    WHERE is_archived = false;
+
+-- viewers of a list of stories: StoryViewRepository.findViewersByStoryIdIn
+CREATE INDEX idx_story_views_story_viewed ON story_views (story_id, viewed_at DESC);
+
+-- account verification: TokenRepository.findByToken
+CREATE INDEX idx_tokens_token ON tokens (token);
+CREATE INDEX idx_tokens_user ON tokens (user_id);
+
+-- feed clean up: TimelineEntryRepository.deleteAllByPostId, deleteAllByOwnerIdAndAuthorId
+CREATE INDEX idx_timeline_entries_post ON timeline_entries (post_id);
+CREATE INDEX idx_timeline_entries_owner_author ON timeline_entries (owner_id, author_id);
+
+-- worker queue: TranscodeJobRepository.findRunnableJobs, requeueStaleJobs, findAllByTargetId
+CREATE INDEX idx_transcode_jobs_runnable ON transcode_jobs (priority DESC, created_at)
+    WHERE status = 'QUEUED';
+CREATE INDEX idx_transcode_jobs_running ON transcode_jobs (started_at)
+    WHERE status = 'RUNNING';
+CREATE INDEX idx_transcode_jobs_target ON transcode_jobs (target_id, created_at DESC);
+
+-- cascades from user and post deletes
+CREATE INDEX idx_post_likes_user ON post_likes (user_id);
+CREATE INDEX idx_comment_likes_user ON comment_likes (user_id);
+CREATE INDEX idx_post_collaborators_user ON post_collaborators (user_id);
+CREATE INDEX idx_user_saved_posts_post ON user_saved_posts (post_id);
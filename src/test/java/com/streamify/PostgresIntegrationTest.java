@@ -0,0 +1,64 @@
+package com.streamify;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// boots the whole service against one embedded postgres shared by every subclass, so the spring context is cached
+// and the schema is the one the Flyway migrations build in production,
+// the scheduled jobs are pushed out so they never run a query in the middle of a test
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.streamify.RecordingStatementInspector",
+        "twilio.account_sid=AC00000000000000000000000000000000",
+        "twilio.auth_token=test",
+        "twilio.phone_number=+10000000000",
+        "application.transcode.poll-interval-ms=3600000",
+        "application.transcode.stale-check-interval-ms=3600000",
+        "application.story.views.flush-interval-ms=3600000",
+        "application.story.reaper.interval-ms=3600000"
+})
+public abstract class PostgresIntegrationTest {
+    private static final EmbeddedPostgres POSTGRES = startPostgres();
+    private static final Path WORK_DIR = createWorkDir();
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("application.file.upload.content-base-url.post", () -> WORK_DIR.resolve("post-assets").toString());
+        registry.add("application.file.upload.content-base-url.story", () -> WORK_DIR.resolve("story-assets").toString());
+        registry.add("application.file.upload.content-base-url.blobs", () -> WORK_DIR.resolve("media-blobs").toString());
+        registry.add("application.preview.cache-dir", () -> WORK_DIR.resolve("preview-cache").toString());
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                }
+            }));
+            return postgres;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static Path createWorkDir() {
+        try {
+            return Files.createTempDirectory("streamify-test");
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
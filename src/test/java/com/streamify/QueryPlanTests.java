@@ -0,0 +1,173 @@
+package com.streamify;
+
+import com.streamify.comment.CommentRepository;
+import com.streamify.post.PostRepository;
+import com.streamify.story.StoryRepository;
+import com.streamify.user.TokenRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// explains the sql hibernate generates for the hot path queries the way a pooled prepared statement runs it,
+// with a generic plan, so a bound parameter that keeps the planner away from a partial index fails here
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTests extends PostgresIntegrationTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private StoryRepository storyRepository;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    // enough rows that an index scan has to win on cost, not because the tables are empty
+    @BeforeAll
+    void seedTables() {
+        jdbcTemplate.update("""
+                INSERT INTO users (id, username, email, is_verified, create_at, is_private, allow_message_request,
+                                   two_factor_enable, follower_count, following_count, posts_count, account_status)
+                SELECT 'plan-user-' || n, 'plan_user_' || n, 'plan_user_' || n || '@streamify.test', true, CURRENT_DATE,
+                       false, true, false, 0, 0, 0, 0
+                FROM generate_series(1, 200) n
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO posts (id, caption, created_at, visibility, is_archived, is_reel, likes,
+                                   hide_likes_and_view_counts, allow_comments, user_id)
+                SELECT 'plan-post-' || n, 'plan post ' || n, TIMESTAMP '2026-01-01' + n * INTERVAL '1 minute',
+                       CASE WHEN n % 10 = 0 THEN 1 ELSE 0 END, n % 17 = 0, n % 4 = 0, 0, false, true,
+                       'plan-user-' || (n % 200 + 1)
+                FROM generate_series(1, 20000) n
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO comments (id, content, created_at, post_id, user_id, likes, reply_count, status)
+                SELECT 'plan-comment-' || n, 'plan comment ' || n, TIMESTAMP '2026-01-01' + n * INTERVAL '1 second',
+                       'plan-post-' || (n % 100 + 1), 'plan-user-' || (n % 200 + 1), 0, 0,
+                       CASE WHEN n % 25 = 0 THEN 'DELETED' ELSE 'ACTIVE' END
+                FROM generate_series(1, 20000) n
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO comments (id, content, created_at, parent_comment_id, post_id, user_id, likes, reply_count, status)
+                SELECT 'plan-reply-' || n, 'plan reply ' || n, TIMESTAMP '2026-01-02' + n * INTERVAL '1 second',
+                       'plan-comment-' || (n % 20000 + 1), 'plan-post-' || ((n % 20000 + 1) % 100 + 1),
+                       'plan-user-' || (n % 200 + 1), 0, 0, 'ACTIVE'
+                FROM generate_series(1, 20000) n
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO stories (id, type, caption, is_archived, view_count, user_id, created_at, expired_at)
+                SELECT 'plan-story-' || n, 'IMAGE', 'plan story ' || n, n % 10 = 0, 0, 'plan-user-' || (n % 200 + 1),
+                       LOCALTIMESTAMP - n * INTERVAL '1 minute', LOCALTIMESTAMP - n * INTERVAL '1 minute' + INTERVAL '12 hours'
+                FROM generate_series(1, 20000) n
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO tokens (id, token, created_at, expires_at, user_id)
+                SELECT 'plan-token-' || n, 'plan-token-' || n, LOCALTIMESTAMP, LOCALTIMESTAMP + INTERVAL '15 minutes',
+                       'plan-user-' || (n % 200 + 1)
+                FROM generate_series(1, 20000) n
+                """);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void displayablePostsPageReadsThePartialIndexInOrder() {
+        RecordingStatementInspector.clear();
+        postRepository.findAllDisplayablePosts(PageRequest.of(0, 20, Sort.by("createdAt").descending()), "plan-user-1");
+        assertGenericPlan(RecordingStatementInspector.lastStatementContaining("order by"), "idx_posts_user_displayable");
+    }
+
+    @Test
+    void displayablePostsCursorReadsThePartialIndexInOrder() {
+        RecordingStatementInspector.clear();
+        postRepository.findAllDisplayablePostsBefore("plan-user-2", LocalDateTime.now(), "~", PageRequest.of(0, 21));
+        assertGenericPlan(RecordingStatementInspector.lastStatementContaining(" from posts "), "idx_posts_user_displayable");
+    }
+
+    @Test
+    void displayableReelsCursorReadsThePartialIndexInOrder() {
+        RecordingStatementInspector.clear();
+        postRepository.findAllDisplayableReelsBefore("plan-user-3", LocalDateTime.now(), "~", PageRequest.of(0, 21));
+        assertGenericPlan(RecordingStatementInspector.lastStatementContaining(" from posts "), "idx_posts_user_reels");
+    }
+
+    @Test
+    void commentThreadsReadThePartialIndexInOrder() {
+        RecordingStatementInspector.clear();
+        commentRepository.findCommentThreadsBefore("plan-post-1", LocalDateTime.now(), "~", PageRequest.of(0, 21));
+        assertGenericPlan(RecordingStatementInspector.lastStatementContaining(" from comments "), "idx_comments_post_threads");
+    }
+
+    @Test
+    void expiredStoriesReadThePartialIndexInOrder() {
+        RecordingStatementInspector.clear();
+        storyRepository.findExpiredStories(LocalDateTime.now(), PageRequest.of(0, 200));
+        assertGenericPlan(RecordingStatementInspector.lastStatementContaining(" from stories "), "idx_stories_unarchived_expired");
+    }
+
+    @Test
+    void tokenLookupReadsTheTokenIndex() {
+        RecordingStatementInspector.clear();
+        tokenRepository.findByToken("plan_user_2", "plan-token-1");
+        assertGenericPlan(RecordingStatementInspector.lastStatementContaining(" from tokens "), "idx_tokens_token");
+    }
+
+    private void assertGenericPlan(String sql, String indexName) {
+        String plan = explainGenericPlan(sql);
+        assertThat(plan)
+                .as("generic plan of %s", sql)
+                .contains(indexName)
+                .doesNotContain("Sort");
+    }
+
+    // force_generic_plan makes postgres plan the statement without looking at the parameter values,
+    // which is what a prepared statement gets after its fifth execution
+    private String explainGenericPlan(String sql) {
+        StringBuilder numberedSql = new StringBuilder();
+        int parameterCount = 0;
+        for (char character : sql.toCharArray()) {
+            if (character == '?') {
+                numberedSql.append('$').append(++parameterCount);
+            } else {
+                numberedSql.append(character);
+            }
+        }
+        StringJoiner parameters = new StringJoiner(", ", "(", ")");
+        for (int idx = 0; idx < parameterCount; idx++) {
+            parameters.add("NULL");
+        }
+        String executeSql = "EXPLAIN EXECUTE plan_query" + (parameterCount == 0 ? "" : parameters.toString());
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET plan_cache_mode = force_generic_plan");
+                statement.execute("PREPARE plan_query AS " + numberedSql);
+                try (ResultSet resultSet = statement.executeQuery(executeSql)) {
+                    StringJoiner plan = new StringJoiner("\n");
+                    while (resultSet.next()) {
+                        plan.add(resultSet.getString(1));
+                    }
+                    return plan.toString();
+                } finally {
+                    statement.execute("DEALLOCATE plan_query");
+                    statement.execute("RESET plan_cache_mode");
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package com.streamify;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// keeps the sql hibernate generates, so a test can explain the exact statement a repository method runs
+public class RecordingStatementInspector implements StatementInspector {
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static String lastStatementContaining(String fragment) {
+        String lowerCaseFragment = fragment.toLowerCase(Locale.ROOT);
+        for (int idx = STATEMENTS.size() - 1; idx >= 0; idx--) {
+            String sql = STATEMENTS.get(idx);
+            if (sql.toLowerCase(Locale.ROOT).contains(lowerCaseFragment)) {
+                return sql;
+            }
+        }
+        throw new IllegalStateException("No statement containing '" + fragment + "' was recorded");
+    }
+}
@@ -0,0 +1,181 @@
+package com.streamify;
+
+import com.streamify.comment.CommentService;
+import com.streamify.comment.CommentThreadResponse;
+import com.streamify.common.CursorPageResponse;
+import com.streamify.common.PageResponse;
+import com.streamify.feed.FeedService;
+import com.streamify.post.PostResponse;
+import com.streamify.post.PostService;
+import com.streamify.story.StoryResponse;
+import com.streamify.story.StoryService;
+import com.streamify.user.User;
+import com.streamify.user.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the list endpoints cost a fixed number of statements whatever the page holds,
+// a lazy association or a per row lookup that sneaks back in shows up as a higher count
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementCountTests extends PostgresIntegrationTest {
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private StoryService storyService;
+
+    // a full page of posts with two media and two collaborators each, a followed account big enough to be pulled
+    // into the feed on read, threads with replies and stories with viewers
+    @BeforeAll
+    void seedTables() {
+        jdbcTemplate.update("""
+                INSERT INTO users (id, username, email, is_verified, create_at, is_private, allow_message_request,
+                                   two_factor_enable, follower_count, following_count, posts_count, account_status)
+                SELECT 'count-' || name, 'count_' || name, 'count_' || name || '@streamify.test', true, CURRENT_DATE,
+                       false, true, false, CASE WHEN name = 'celebrity' THEN 1000000 ELSE 0 END, 0, 0, 0
+                FROM unnest(ARRAY['author', 'celebrity', 'reader', 'collaborator-1', 'collaborator-2',
+                                  'viewer-1', 'viewer-2', 'viewer-3']) name
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO posts (id, caption, created_at, visibility, is_archived, is_reel, likes,
+                                   hide_likes_and_view_counts, allow_comments, user_id)
+                SELECT 'count-post-' || n, 'count post ' || n, TIMESTAMP '2026-01-01' + n * INTERVAL '1 minute', 0,
+                       false, false, 0, false, true, CASE WHEN n <= 15 THEN 'count-author' ELSE 'count-celebrity' END
+                FROM generate_series(1, 20) n
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO post_media (id, post_id, media_url, type)
+                SELECT 'count-media-' || n || '-' || idx, 'count-post-' || n, 'count/' || n || '/' || idx || '.jpg', 'image/jpeg'
+                FROM generate_series(1, 20) n, generate_series(1, 2) idx
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO post_collaborators (post_id, user_id)
+                SELECT 'count-post-' || n, 'count-collaborator-' || idx
+                FROM generate_series(1, 20) n, generate_series(1, 2) idx
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO follows (id, follower_id, following_id, created_at)
+                VALUES ('count-follow-1', 'count-reader', 'count-author', LOCALTIMESTAMP),
+                       ('count-follow-2', 'count-reader', 'count-celebrity', LOCALTIMESTAMP)
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO timeline_entries (id, owner_id, post_id, author_id, created_at)
+                SELECT 'count-timeline-' || n, 'count-reader', 'count-post-' || n, 'count-author',
+                       TIMESTAMP '2026-01-01' + n * INTERVAL '1 minute'
+                FROM generate_series(1, 15) n
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO comments (id, content, created_at, post_id, user_id, likes, reply_count, status)
+                SELECT 'count-comment-' || n, 'count comment ' || n, TIMESTAMP '2026-01-01' + n * INTERVAL '1 minute',
+                       'count-post-1', 'count-reader', 0, 3, 'ACTIVE'
+                FROM generate_series(1, 15) n
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO comments (id, content, created_at, parent_comment_id, post_id, user_id, likes, reply_count, status)
+                SELECT 'count-reply-' || n || '-' || idx, 'count reply ' || idx,
+                       TIMESTAMP '2026-01-02' + idx * INTERVAL '1 minute', 'count-comment-' || n, 'count-post-1',
+                       'count-author', 0, 0, 'ACTIVE'
+                FROM generate_series(1, 15) n, generate_series(1, 3) idx
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO stories (id, type, caption, is_archived, view_count, user_id, created_at, expired_at)
+                SELECT 'count-story-' || n, 'IMAGE', 'count story ' || n, false, 3, 'count-author',
+                       LOCALTIMESTAMP - n * INTERVAL '1 minute', LOCALTIMESTAMP + INTERVAL '6 hours'
+                FROM generate_series(1, 5) n
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO story_views (id, story_id, viewer_id, viewed_at)
+                SELECT 'count-view-' || n || '-' || idx, 'count-story-' || n, 'count-viewer-' || idx,
+                       LOCALTIMESTAMP - idx * INTERVAL '1 second'
+                FROM generate_series(1, 5) n, generate_series(1, 3) idx
+                """);
+    }
+
+    @Test
+    void postsPageCostsFiveStatements() {
+        // the author, the rows, the count, every media and every collaborator
+        PageResponse<PostResponse> page = countStatements(5, () -> postService.getAllPostsByUserId(0, PAGE_SIZE, "count-author"));
+        assertFullPostPage(page.getContent());
+    }
+
+    @Test
+    void postsCursorPageCostsFourStatements() {
+        // the author, the rows, every media and every collaborator
+        CursorPageResponse<PostResponse> page = countStatements(4, () -> postService.getPostsByUserIdAfterCursor(null, PAGE_SIZE, "count-author"));
+        assertFullPostPage(page.getContent());
+    }
+
+    @Test
+    void feedPageCostsSevenStatements() {
+        User reader = userRepository.findById("count-reader").orElseThrow();
+        Authentication connectedUser = new UsernamePasswordAuthenticationToken(reader, null, reader.getAuthorities());
+        // the pushed entries, the big accounts, their pulled posts, the rows, every media, every collaborator, the likes
+        CursorPageResponse<PostResponse> page = countStatements(7, () -> feedService.getFeed(null, PAGE_SIZE, connectedUser));
+        assertFullPostPage(page.getContent());
+    }
+
+    @Test
+    void commentThreadsPageCostsThreeStatements() {
+        // the post, the threads and the first replies of all of them
+        CursorPageResponse<CommentThreadResponse> page = countStatements(3, () -> commentService.getPostCommentThreads("count-post-1", null, PAGE_SIZE, 2));
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).allSatisfy(thread -> assertThat(thread.getReplies()).hasSize(2));
+    }
+
+    @Test
+    void storyListCostsThreeStatements() {
+        // the author, the stories and every viewer of every story
+        List<StoryResponse> stories = countStatements(3, () -> storyService.findStoriesByUser("count-author"));
+        assertThat(stories).hasSize(5);
+        assertThat(stories).allSatisfy(story -> assertThat(story.getViewer()).hasSize(3));
+    }
+
+    // starts from a cold second level cache, a warm one would hide the statements a cache miss costs
+    private <T> T countStatements(long expectedStatements, Supplier<T> call) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        T result = call.get();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expectedStatements);
+        return result;
+    }
+
+    private void assertFullPostPage(List<PostResponse> posts) {
+        assertThat(posts).hasSize(PAGE_SIZE);
+        assertThat(posts).allSatisfy(post -> {
+            assertThat(post.getPostMedia()).hasSize(2);
+            assertThat(post.getCollaborators()).hasSize(2);
+        });
+    }
+}